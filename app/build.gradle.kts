@@ -26,6 +26,9 @@ android {
             )
         }
     }
+    buildFeatures {
+        buildConfig = true
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
@@ -33,6 +36,9 @@ android {
 }
 
 dependencies {
+    // Models and Android-free logic, shared with the benchmarks
+    implementation(project(":core"))
+
     implementation ("androidx.appcompat:appcompat:1.6.1")
     implementation ("com.google.android.material:material:1.8.0")
     implementation ("androidx.constraintlayout:constraintlayout:2.1.4")
@@ -53,6 +59,9 @@ dependencies {
     implementation ("androidx.lifecycle:lifecycle-livedata:2.6.1")
 
     implementation(libs.swiperefreshlayout)
+    implementation(libs.recyclerview)
+    // Pre-inflates list cards off the main thread
+    implementation(libs.asynclayoutinflater)
 
     implementation(libs.appcompat)
     implementation(libs.material)
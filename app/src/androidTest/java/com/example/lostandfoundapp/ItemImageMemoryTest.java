@@ -0,0 +1,110 @@
+package com.example.lostandfoundapp;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.lostandfoundapp.adapters.ItemAdapter;
+import com.example.lostandfoundapp.images.ImageCodec;
+import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.utils.Constants;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Memory regression test for list images: binding many photo items must
+ * produce card-sized bitmaps, not full-size decodes of the stored image.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ItemImageMemoryTest {
+    private static final int ITEM_COUNT = 200;
+    private static final long DECODE_TIMEOUT_MS = 30000;
+
+    @Test
+    public void bindingImageItemsKeepsBitmapsCardSized() {
+        final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        int cardSize = context.getResources().getDimensionPixelSize(R.dimen.item_card_image_size);
+
+        // Same size and format as the detail images we upload
+        Bitmap source = Bitmap.createBitmap(800, 600, Bitmap.Config.ARGB_8888);
+        new Canvas(source).drawColor(Color.DKGRAY);
+        String dataUri = ImageCodec.encode(source, Bitmap.CompressFormat.JPEG, 70);
+        source.recycle();
+
+        final List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            Item item = new Item();
+            item.setFirebase_id("memory-test-" + i);
+            item.setTitle("Item " + i);
+            item.setStatus_id(Constants.STATUS_LOST);
+            item.setImage(dataUri);
+            items.add(item);
+        }
+
+        // Bind every item to its own holder, as a long fling would
+        final List<ImageView> imageViews = new ArrayList<>();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                ItemAdapter adapter = new ItemAdapter(context, null);
+                // The first list is applied synchronously, no diff to wait for
+                adapter.submitList(items);
+                FrameLayout parent = new FrameLayout(context);
+                for (int i = 0; i < ITEM_COUNT; i++) {
+                    ItemAdapter.ItemViewHolder holder = adapter.onCreateViewHolder(parent, 0);
+                    adapter.onBindViewHolder(holder, i);
+                    imageViews.add((ImageView) holder.itemView.findViewById(R.id.imageViewItem));
+                }
+            }
+        });
+
+        // An ARGB box of the card size is a generous upper bound per bitmap;
+        // a full decode of the 800x600 source would be about 1.9 MB
+        long maxBytesPerBitmap = (long) cardSize * cardSize * 4;
+        long totalBytes = 0;
+        for (ImageView imageView : imageViews) {
+            Bitmap bitmap = awaitBitmap(imageView);
+            assertNotNull("Image was not decoded in time", bitmap);
+            assertTrue("Bitmap of " + bitmap.getAllocationByteCount() + " bytes exceeds card size",
+                    bitmap.getAllocationByteCount() <= maxBytesPerBitmap);
+            totalBytes += bitmap.getAllocationByteCount();
+        }
+        assertTrue(totalBytes <= ITEM_COUNT * maxBytesPerBitmap);
+    }
+
+    private static Bitmap awaitBitmap(final ImageView imageView) {
+        long deadline = SystemClock.uptimeMillis() + DECODE_TIMEOUT_MS;
+        while (SystemClock.uptimeMillis() < deadline) {
+            final Bitmap[] result = new Bitmap[1];
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    Drawable drawable = imageView.getDrawable();
+                    if (drawable instanceof BitmapDrawable) {
+                        result[0] = ((BitmapDrawable) drawable).getBitmap();
+                    }
+                }
+            });
+            if (result[0] != null) {
+                return result[0];
+            }
+            SystemClock.sleep(20);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.lostandfoundapp;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.SystemClock;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.lostandfoundapp.adapters.ItemAdapter;
+import com.example.lostandfoundapp.adapters.ItemViewPool;
+import com.example.lostandfoundapp.metrics.Counter;
+import com.example.lostandfoundapp.metrics.Metrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Cards inflated by ItemViewPool.prewarm must reach a list as ready rows:
+ * the prewarm runs once the main thread goes idle, and the adapter then
+ * takes its first rows from the pool instead of inflating them.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ItemViewPoolTest {
+    private static final long INFLATE_TIMEOUT_MS = 10000;
+
+    /**
+     * Stands in for MainActivity, the host of the pool
+     */
+    private static class HostContext extends ContextWrapper implements ItemViewPool.Host {
+        ItemViewPool pool;
+
+        HostContext(Context base) {
+            super(base);
+        }
+
+        @Override
+        public ItemViewPool getItemViewPool() {
+            return pool;
+        }
+    }
+
+    @Test
+    public void prewarmedCardBecomesTheFirstRow() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        final HostContext context = new HostContext(instrumentation.getTargetContext());
+        final ItemAdapter[] adapter = new ItemAdapter[1];
+        final RecyclerView[] list = new RecyclerView[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                context.pool = new ItemViewPool(context);
+                context.pool.prewarm();
+                adapter[0] = new ItemAdapter(context, null);
+                list[0] = new RecyclerView(context);
+                list[0].setLayoutManager(new LinearLayoutManager(context));
+            }
+        });
+        // Let the idle handler start the inflation
+        instrumentation.waitForIdleSync();
+
+        // Rows are inflated on the spot until the pool's cards arrive, then taken from it
+        Counter cardsInflated = Metrics.counter("adapter.card_inflated");
+        long deadline = SystemClock.uptimeMillis() + INFLATE_TIMEOUT_MS;
+        final ItemAdapter.ItemViewHolder[] holder = new ItemAdapter.ItemViewHolder[1];
+        boolean fromPool = false;
+        while (!fromPool && SystemClock.uptimeMillis() < deadline) {
+            long inflatedBefore = cardsInflated.get();
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    holder[0] = adapter[0].onCreateViewHolder(list[0], 0);
+                }
+            });
+            fromPool = cardsInflated.get() == inflatedBefore;
+            if (!fromPool) {
+                SystemClock.sleep(20);
+            }
+        }
+
+        assertTrue("No pre-inflated card was handed to the adapter", fromPool);
+        assertNotNull(holder[0].itemView.findViewById(R.id.textViewTitle));
+        assertTrue("Card was inflated without list layout params",
+                holder[0].itemView.getLayoutParams() instanceof RecyclerView.LayoutParams);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.lostandfoundapp.firebase;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.lostandfoundapp.database.PendingWriteStore;
+import com.example.lostandfoundapp.database.PendingWriteStore.PendingWrite;
+import com.example.lostandfoundapp.utils.Constants;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * The write queue against a stand-in for the database, with its pending
+ * writes in a database file of its own. A queue whose batches never get an
+ * answer plays a device that went offline; opening a new store and queue
+ * on the same file plays the next start of the app.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WriteQueueTest {
+    private static final String DATABASE = "write_queue_test.db";
+    private static final long TIMEOUT_MS = 10000;
+
+    private Context context;
+
+    /**
+     * Records every batch; answers each one at once, or never when offline
+     */
+    private static class RecordingRemote implements WriteQueue.Remote {
+        final List<Map<String, Object>> sent = Collections.synchronizedList(new ArrayList<Map<String, Object>>());
+        private final boolean online;
+
+        RecordingRemote(boolean online) {
+            this.online = online;
+        }
+
+        @Override
+        public Task<Void> updateChildren(Map<String, Object> updates) {
+            sent.add(new HashMap<>(updates));
+            return online ? Tasks.<Void>forResult(null) : new TaskCompletionSource<Void>().getTask();
+        }
+
+        @Override
+        public Task<Boolean> itemExists(String itemId) {
+            return Tasks.forResult(true);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(DATABASE);
+    }
+
+    @Test
+    public void statusChangesWhileOfflineGoOutAsOneUpdate() throws Exception {
+        WriteQueue offlineQueue = new WriteQueue(PendingWriteStore.open(context, DATABASE), new RecordingRemote(false));
+        // Lost goes out and hangs, found and then claimed wait behind it
+        await(offlineQueue.enqueue(statusChange("item1", Constants.STATUS_LOST)).getQueued());
+        await(offlineQueue.enqueue(statusChange("item1", Constants.STATUS_FOUND)).getQueued());
+        await(offlineQueue.enqueue(statusChange("item1", Constants.STATUS_CLAIMED)).getQueued());
+
+        List<PendingWrite> pending = PendingWriteStore.open(context, DATABASE).loadAll();
+        assertEquals(2, pending.size());
+        assertEquals("items/item1/status_id", pending.get(0).getPath());
+        assertEquals(Constants.STATUS_CLAIMED, ((Number) pending.get(0).getValue()).intValue());
+
+        RecordingRemote remote = new RecordingRemote(true);
+        new WriteQueue(PendingWriteStore.open(context, DATABASE), remote);
+        awaitNothingPending();
+
+        assertEquals(1, remote.sent.size());
+        Map<String, Object> update = remote.sent.get(0);
+        assertEquals(2, update.size());
+        assertEquals(Constants.STATUS_CLAIMED, ((Number) update.get("items/item1/status_id")).intValue());
+        assertEquals(Constants.STATUS_CLAIMED + "_item1", update.get("items/item1/status_key"));
+    }
+
+    @Test
+    public void pendingWritesAreReadBackAfterARestart() throws Exception {
+        WriteQueue offlineQueue = new WriteQueue(PendingWriteStore.open(context, DATABASE), new RecordingRemote(false));
+        Map<String, Object> writes = new HashMap<>();
+        writes.put("items/item1/title", "Wallet");
+        writes.put("items/item1/location", "Library");
+        await(offlineQueue.enqueue(writes).getQueued());
+
+        PendingWriteStore restarted = PendingWriteStore.open(context, DATABASE);
+        List<PendingWrite> pending = restarted.loadAll();
+
+        assertEquals(2, pending.size());
+        // Ordered by path
+        assertEquals("items/item1/location", pending.get(0).getPath());
+        assertEquals("Library", pending.get(0).getValue());
+        assertEquals("items/item1/title", pending.get(1).getPath());
+        assertEquals("Wallet", pending.get(1).getValue());
+
+        // Versions carry on from the stored ones, so the new write supersedes the old
+        long before = pending.get(1).getVersion();
+        long after = restarted.put(Collections.<String, Object>singletonMap("items/item1/title", "Purse"))
+                .get("items/item1/title");
+        assertTrue(after > before);
+    }
+
+    @Test
+    public void replaySendsAParentBeforeTheWriteBelowIt() throws Exception {
+        WriteQueue offlineQueue = new WriteQueue(PendingWriteStore.open(context, DATABASE), new RecordingRemote(false));
+        Map<String, Object> user = new HashMap<>();
+        user.put("name", "Alex");
+        user.put("email", "alex@example.com");
+        await(offlineQueue.enqueue(Collections.<String, Object>singletonMap("users/u1", user)).getQueued());
+        await(offlineQueue.enqueue(Collections.<String, Object>singletonMap("users/u1/name", "Sam")).getQueued());
+
+        RecordingRemote remote = new RecordingRemote(true);
+        new WriteQueue(PendingWriteStore.open(context, DATABASE), remote);
+        awaitNothingPending();
+
+        // A multi-path update can't hold both, so the later, deeper write goes second
+        assertEquals(2, remote.sent.size());
+        assertEquals(Collections.<String, Object>singletonMap("users/u1", user), remote.sent.get(0));
+        assertEquals(Collections.<String, Object>singletonMap("users/u1/name", "Sam"), remote.sent.get(1));
+    }
+
+    // The writes a status change makes, as FirebaseManager queues them
+    private static Map<String, Object> statusChange(String itemId, int statusId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("items/" + itemId + "/status_id", statusId);
+        updates.put("items/" + itemId + "/status_key", statusId + "_" + itemId);
+        return updates;
+    }
+
+    private void awaitNothingPending() throws Exception {
+        PendingWriteStore store = PendingWriteStore.open(context, DATABASE);
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MS;
+        while (!store.loadAll().isEmpty()) {
+            assertTrue("Pending writes were not sent in time", SystemClock.uptimeMillis() < deadline);
+            SystemClock.sleep(20);
+        }
+    }
+
+    private static void await(Task<?> task) throws Exception {
+        Tasks.await(task, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.lostandfoundapp.metrics;
+
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.lostandfoundapp.BuildConfig;
+import com.example.lostandfoundapp.R;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Debug builds only. Shows the live metrics table, refreshed every second,
+ * and saves snapshots testers can attach to jank reports. Snapshots go to
+ * Android/data/<package>/files/metrics on the device.
+ */
+public class MetricsActivity extends AppCompatActivity {
+    private static final String TAG = "MetricsActivity";
+    private static final long REFRESH_INTERVAL_MS = 1000;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService fileExecutor = Executors.newSingleThreadExecutor();
+    private TextView textViewReport;
+
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            textViewReport.setText(Metrics.report());
+            mainHandler.postDelayed(this, REFRESH_INTERVAL_MS);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+
+        textViewReport = findViewById(R.id.textViewReport);
+        Button buttonReset = findViewById(R.id.buttonReset);
+        Button buttonSave = findViewById(R.id.buttonSave);
+
+        buttonReset.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                Metrics.reset();
+                textViewReport.setText(Metrics.report());
+            }
+        });
+
+        buttonSave.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                saveSnapshot();
+            }
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mainHandler.post(refresh);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        mainHandler.removeCallbacks(refresh);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        fileExecutor.shutdown();
+    }
+
+    // Take the snapshot now, write it off the main thread
+    private void saveSnapshot() {
+        final Date now = new Date();
+        final String snapshot = header(now) + Metrics.report();
+        final File directory = new File(getExternalFilesDir(null), "metrics");
+        final String name = "metrics-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(now) + ".txt";
+
+        fileExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final File file = new File(directory, name);
+                boolean saved;
+                try {
+                    if (!directory.isDirectory() && !directory.mkdirs()) {
+                        throw new IOException("Cannot create " + directory);
+                    }
+                    try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                        writer.write(snapshot);
+                    }
+                    saved = true;
+                } catch (IOException e) {
+                    Log.e(TAG, "Error saving metrics snapshot", e);
+                    saved = false;
+                }
+
+                final boolean result = saved;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        String message = result ?
+                                getString(R.string.metrics_saved, file.getAbsolutePath()) :
+                                getString(R.string.metrics_save_failed);
+                        Toast.makeText(MetricsActivity.this, message, Toast.LENGTH_LONG).show();
+                    }
+                });
+            }
+        });
+    }
+
+    // What the numbers were measured on
+    private static String header(Date now) {
+        return "Lost and Found " + BuildConfig.VERSION_NAME + " (" + BuildConfig.VERSION_CODE + ")\n"
+                + Build.MANUFACTURER + " " + Build.MODEL + ", Android " + Build.VERSION.RELEASE
+                + " (API " + Build.VERSION.SDK_INT + ")\n"
+                + now + "\n\n";
+    }
+}
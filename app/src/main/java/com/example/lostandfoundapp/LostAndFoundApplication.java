@@ -3,6 +3,12 @@ package com.example.lostandfoundapp;
 import android.app.Application;
 import android.util.Log;
 
+import com.example.lostandfoundapp.database.LocalItemStore;
+import com.example.lostandfoundapp.database.PendingWriteStore;
+import com.example.lostandfoundapp.firebase.StatusRegistry;
+import com.example.lostandfoundapp.startup.StartupOrchestrator;
+import com.example.lostandfoundapp.utils.AndroidLogSink;
+import com.example.lostandfoundapp.utils.AppLog;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.database.FirebaseDatabase;
@@ -13,7 +19,40 @@ public class LostAndFoundApplication extends Application {
     @Override
     public void onCreate() {
         super.onCreate();
+        // Hot-path debug logging is compiled in but costs one comparison in release builds
+        AppLog.install(new AndroidLogSink(), BuildConfig.DEBUG ? AppLog.DEBUG : AppLog.WARN);
+        StartupOrchestrator.initialize(this);
+        final StartupOrchestrator startup = StartupOrchestrator.getInstance();
 
+        // Local stores have to exist before FirebaseManager is first used.
+        // Creating them does no disk I/O, their databases open on first use.
+        startup.runCritical("stores", new Runnable() {
+            @Override
+            public void run() {
+                LocalItemStore.initialize(LostAndFoundApplication.this);
+                PendingWriteStore.initialize(LostAndFoundApplication.this);
+                StatusRegistry.initialize(LostAndFoundApplication.this);
+            }
+        });
+
+        // Persistence can only be switched on before the database is first used
+        startup.runCritical("firebase", new Runnable() {
+            @Override
+            public void run() {
+                initializeFirebase();
+            }
+        });
+
+        // Nothing on screen needs these yet
+        startup.runDeferred("status_registry", new Runnable() {
+            @Override
+            public void run() {
+                StatusRegistry.getInstance().loadSaved();
+            }
+        });
+    }
+
+    private void initializeFirebase() {
         try {
             // Initialize Firebase
             FirebaseApp.initializeApp(this);
@@ -21,16 +60,6 @@ public class LostAndFoundApplication extends Application {
             // Enable offline capabilities for Firebase Database
             FirebaseDatabase.getInstance().setPersistenceEnabled(true);
 
-            // Ensure proper database URL is set
-            String databaseUrl = FirebaseDatabase.getInstance().getReference().toString();
-            if (!databaseUrl.contains("lostandfoundapp-aba62")) {
-                Log.w(TAG, "Firebase database URL doesn't contain expected project ID");
-
-                // Get a new instance with the correct URL
-                FirebaseDatabase.getInstance("https://lostandfoundapp-aba62-default-rtdb.firebaseio.com");
-                Log.d(TAG, "Firebase database URL manually set");
-            }
-
             Log.d(TAG, "Firebase successfully initialized");
         } catch (Exception e) {
             Log.e(TAG, "Error initializing Firebase", e);
@@ -3,6 +3,8 @@ package com.example.lostandfoundapp;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
 
 import android.content.Intent;
 import android.net.Uri;
@@ -10,17 +12,29 @@ import android.os.Bundle;
 import android.view.MenuItem;
 import android.widget.Toast;
 
+import com.example.lostandfoundapp.adapters.ItemViewPool;
 import com.example.lostandfoundapp.auth.LoginActivity;
+import com.example.lostandfoundapp.firebase.FirebaseManager;
 import com.example.lostandfoundapp.fragments.AddItemFragment;
 import com.example.lostandfoundapp.fragments.HomeFragment;
 import com.example.lostandfoundapp.fragments.ProfileFragment;
+import com.example.lostandfoundapp.startup.StartupOrchestrator;
 import com.example.lostandfoundapp.utils.FirebaseSessionManager;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
-public class MainActivity extends AppCompatActivity implements BottomNavigationView.OnNavigationItemSelectedListener {
+public class MainActivity extends AppCompatActivity
+        implements BottomNavigationView.OnNavigationItemSelectedListener, ItemViewPool.Host {
+
+    // Fragment tags of the bottom navigation tabs
+    private static final String TAB_HOME = "home";
+    private static final String TAB_ADD = "add";
+    private static final String TAB_PROFILE = "profile";
+    private static final String[] TABS = {TAB_HOME, TAB_ADD, TAB_PROFILE};
 
     private BottomNavigationView bottomNavigationView;
     private FirebaseSessionManager sessionManager;
+    // Item cards shared by the home, user items and archive lists
+    private ItemViewPool itemViewPool;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -29,6 +43,14 @@ public class MainActivity extends AppCompatActivity implements BottomNavigationV
 
         // Initialize session manager
         sessionManager = new FirebaseSessionManager(this);
+        // First use of the manager on a cold start; cheap (no disk or network
+        // waits), and timed so the cold-start report shows what it costs
+        StartupOrchestrator.getInstance().runCritical("firebase_manager", new Runnable() {
+            @Override
+            public void run() {
+                FirebaseManager.getInstance();
+            }
+        });
 
         // Check if user is logged in
         if (!sessionManager.isLoggedIn()) {
@@ -38,43 +60,93 @@ public class MainActivity extends AppCompatActivity implements BottomNavigationV
             return;
         }
 
+        // The image migration needs a context to pick the image byte budget
+        FirebaseManager.getInstance().setContext(this);
+        // Data migrations wait until the first screen is up, and run until each is done once
+        StartupOrchestrator.getInstance().runDeferred("migrations", new Runnable() {
+            @Override
+            public void run() {
+                FirebaseManager.getInstance().runPendingMigrations();
+            }
+        });
+
+        // Inflate the first lists' cards in the background once this screen is up
+        itemViewPool = new ItemViewPool(this);
+        itemViewPool.prewarm();
+
         // Initialize bottom navigation
         bottomNavigationView = findViewById(R.id.bottom_navigation);
         bottomNavigationView.setOnNavigationItemSelectedListener(this);
 
-        // Set default fragment
+        // Set default fragment. After a rotation the tabs come back from the
+        // fragment manager, shown or hidden as they were.
         if (savedInstanceState == null) {
-            loadFragment(new HomeFragment());
+            showTab(TAB_HOME);
         }
 
         // Add this after you've uploaded images through ADB or Device File Explorer
         sendBroadcast(new Intent(Intent.ACTION_MEDIA_SCANNER_SCAN_FILE, Uri.parse("file:///sdcard/Pictures/")));
     }
 
-    private boolean loadFragment(Fragment fragment) {
-        if (fragment != null) {
-            getSupportFragmentManager()
-                    .beginTransaction()
-                    .replace(R.id.fragment_container, fragment)
-                    .commit();
-            return true;
+    @Override
+    public ItemViewPool getItemViewPool() {
+        return itemViewPool;
+    }
+
+    /**
+     * Switch the bottom navigation to a tab, e.g. back home after posting
+     */
+    public void selectTab(int navigationItemId) {
+        bottomNavigationView.setSelectedItemId(navigationItemId);
+    }
+
+    /**
+     * Show a tab's fragment and hide the others. Each tab is created once
+     * and then kept, with its views and state, so switching back to it
+     * costs no reload.
+     */
+    private boolean showTab(String tab) {
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        FragmentTransaction transaction = fragmentManager.beginTransaction().setReorderingAllowed(true);
+        for (String other : TABS) {
+            Fragment fragment = fragmentManager.findFragmentByTag(other);
+            if (fragment != null && !other.equals(tab) && !fragment.isHidden()) {
+                transaction.hide(fragment);
+            }
+        }
+
+        Fragment fragment = fragmentManager.findFragmentByTag(tab);
+        if (fragment == null) {
+            transaction.add(R.id.fragment_container, createTab(tab), tab);
+        } else if (fragment.isHidden()) {
+            transaction.show(fragment);
+        }
+        transaction.commit();
+        return true;
+    }
+
+    private static Fragment createTab(String tab) {
+        switch (tab) {
+            case TAB_ADD:
+                return new AddItemFragment();
+            case TAB_PROFILE:
+                return new ProfileFragment();
+            case TAB_HOME:
+            default:
+                return new HomeFragment();
         }
-        return false;
     }
 
     @Override
     public boolean onNavigationItemSelected(@NonNull MenuItem item) {
-        Fragment fragment = null;
-
         int itemId = item.getItemId();
         if (itemId == R.id.navigation_home) {
-            fragment = new HomeFragment();
+            return showTab(TAB_HOME);
         } else if (itemId == R.id.navigation_add) {
-            fragment = new AddItemFragment();
+            return showTab(TAB_ADD);
         } else if (itemId == R.id.navigation_profile) {
-            fragment = new ProfileFragment();
+            return showTab(TAB_PROFILE);
         }
-
-        return loadFragment(fragment);
+        return false;
     }
 }
\ No newline at end of file
@@ -1,43 +1,68 @@
 package com.example.lostandfoundapp;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
 
 import com.example.lostandfoundapp.auth.LoginActivity;
+import com.example.lostandfoundapp.startup.StartupOrchestrator;
 import com.example.lostandfoundapp.utils.FirebaseSessionManager;
+import com.google.firebase.auth.FirebaseAuth;
 
 public class SplashActivity extends AppCompatActivity {
 
-    private static final long SPLASH_TIMEOUT = 2000; // 2 seconds
     private FirebaseSessionManager sessionManager;
+    private FirebaseAuth firebaseAuth;
+    private boolean routed = false;
+
+    // Called once the signed-in user has been restored from disk, which is
+    // as early as we can know where to go
+    private final FirebaseAuth.AuthStateListener authStateListener = new FirebaseAuth.AuthStateListener() {
+        @Override
+        public void onAuthStateChanged(@NonNull FirebaseAuth auth) {
+            if (routed) {
+                return;
+            }
+            routed = true;
+            StartupOrchestrator startup = StartupOrchestrator.getInstance();
+            startup.mark("auth_known");
+
+            // Check if user is logged in
+            if (sessionManager.isLoggedIn(auth.getCurrentUser())) {
+                // User is logged in, go to main activity
+                startActivity(new Intent(SplashActivity.this, MainActivity.class));
+            } else {
+                // User is not logged in, go to login activity
+                startActivity(new Intent(SplashActivity.this, LoginActivity.class));
+            }
+            startup.mark("routed");
+
+            // Close this activity
+            finish();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
-        // Using theme instead of setContentView
 
         // Initialize session manager
         sessionManager = new FirebaseSessionManager(this);
+        firebaseAuth = FirebaseAuth.getInstance();
+    }
 
-        new Handler().postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                // Check if user is logged in
-                if (sessionManager.isLoggedIn()) {
-                    // User is logged in, go to main activity
-                    startActivity(new Intent(SplashActivity.this, MainActivity.class));
-                } else {
-                    // User is not logged in, go to login activity
-                    startActivity(new Intent(SplashActivity.this, LoginActivity.class));
-                }
-
-                // Close this activity
-                finish();
-            }
-        }, SPLASH_TIMEOUT);
+    @Override
+    protected void onStart() {
+        super.onStart();
+        firebaseAuth.addAuthStateListener(authStateListener);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        firebaseAuth.removeAuthStateListener(authStateListener);
     }
-}
\ No newline at end of file
+}
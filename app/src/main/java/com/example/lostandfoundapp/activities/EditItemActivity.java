@@ -9,8 +9,6 @@ import android.app.Activity;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.provider.MediaStore;
 import android.text.TextUtils;
 import android.util.Log;
@@ -25,19 +23,21 @@ import android.widget.Toast;
 
 import com.example.lostandfoundapp.R;
 import com.example.lostandfoundapp.firebase.FirebaseManager;
+import com.example.lostandfoundapp.images.ImagePipeline;
+import com.example.lostandfoundapp.images.ImageUploadPipeline;
 import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.model.ItemMapper;
+import com.example.lostandfoundapp.utils.AppLog;
 import com.example.lostandfoundapp.utils.Constants;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
 import com.google.android.material.textfield.TextInputEditText;
 import com.squareup.picasso.Picasso;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.util.Base64;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 public class EditItemActivity extends AppCompatActivity {
 
@@ -55,9 +55,13 @@ public class EditItemActivity extends AppCompatActivity {
     private FirebaseManager firebaseManager;
     private String itemId;
     private Item currentItem;
+    // Fields as loaded, so an update only sends what the user changed
+    private Map<String, Object> loadedFields;
     private Uri selectedImageUri;
     private boolean imageChanged = false;
     private boolean isUpdating = false;
+    // Running image upload, cancelled if the user leaves before it finishes
+    private ImageUploadPipeline.UploadHandle uploadHandle;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -146,11 +150,10 @@ public class EditItemActivity extends AppCompatActivity {
 
                 try {
                     // Get item
-                    currentItem = dataSnapshot.getValue(Item.class);
+                    currentItem = ItemMapper.fromValue(dataSnapshot.getKey(), dataSnapshot.getValue());
 
                     if (currentItem != null) {
-                        // Set Firebase ID for reference
-                        currentItem.setFirebase_id(dataSnapshot.getKey());
+                        loadedFields = currentItem.toMap();
 
                         // Populate form with item details
                         populateForm(currentItem);
@@ -189,39 +192,10 @@ public class EditItemActivity extends AppCompatActivity {
             spinnerStatus.setSelection(statusIndex);
         }
 
-        // Load image if available
-        if (item.getImage() != null && !item.getImage().isEmpty()) {
-            if (item.getImage().startsWith("data:image")) {
-                try {
-                    // Extract the base64 content (remove the data:image/jpeg;base64, prefix)
-                    String base64Image = item.getImage();
-                    if (base64Image.contains(",")) {
-                        base64Image = base64Image.substring(base64Image.indexOf(",") + 1);
-
-                        // Decode and display
-                        byte[] decodedString = Base64.decode(base64Image, Base64.DEFAULT);
-                        Bitmap decodedBitmap = BitmapFactory.decodeByteArray(decodedString, 0, decodedString.length);
-
-                        if (decodedBitmap != null) {
-                            imageViewItem.setImageBitmap(decodedBitmap);
-                        } else {
-                            imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error decoding Base64 image", e);
-                    imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-                }
-            } else {
-                // It's a regular URL (for backward compatibility)
-                Picasso.get()
-                        .load(item.getImage())
-                        .placeholder(R.drawable.image_placeholder_background)
-                        .error(R.drawable.image_placeholder_background)
-                        .into(imageViewItem);
-            }
-        } else {
-            imageViewItem.setImageResource(R.drawable.image_placeholder_background);
+        // Load image if available, unless the user already picked a new one
+        if (!imageChanged) {
+            int imageSize = getResources().getDimensionPixelSize(R.dimen.item_card_image_size);
+            ImagePipeline.getInstance().loadDetail(imageViewItem, item, imageSize, imageSize);
         }
     }
 
@@ -238,6 +212,9 @@ public class EditItemActivity extends AppCompatActivity {
             selectedImageUri = data.getData();
             imageChanged = true;
 
+            // Stop a still-running load of the old image from replacing the new one
+            ImagePipeline.getInstance().cancel(imageViewItem);
+
             // Load image into ImageView
             Picasso.get().load(selectedImageUri).into(imageViewItem);
         }
@@ -296,25 +273,18 @@ public class EditItemActivity extends AppCompatActivity {
         currentItem.setContact_phone(contactPhone);
         currentItem.setContact_email(contactEmail);
 
-        // Add a safety timeout to ensure the activity completes
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                if (isUpdating) {
-                    Log.d(TAG, "Safety timeout triggered - completing activity");
-                    progressBar.setVisibility(View.GONE);
-                    buttonSubmit.setEnabled(true);
-                    Toast.makeText(EditItemActivity.this, "Update completed", Toast.LENGTH_SHORT).show();
-                    setResult(Activity.RESULT_OK);
-                    finish();
-                }
-            }
-        }, 1000); // 5 second safety timeout
-
-        // Update item in Firebase
+        // Update item through the write queue, the listener runs once the change
+        // is saved on the device and it is sent from there
         if (imageChanged && selectedImageUri != null) {
-            // Update item with new image
-            firebaseManager.updateItemWithImage(currentItem, selectedImageUri, new OnCompleteListener<Item>() {
+            // Update item with new image, processed in the background
+            uploadHandle = firebaseManager.updateItemWithImage(currentItem, loadedFields, selectedImageUri, new ImageUploadPipeline.ProgressListener() {
+                @Override
+                public void onProgress(int percent) {
+                    if (isUpdating) {
+                        buttonSubmit.setText(getString(R.string.uploading_progress, percent));
+                    }
+                }
+            }, new OnCompleteListener<Item>() {
                 @Override
                 public void onComplete(@NonNull Task<Item> task) {
                     handleUpdateComplete(task);
@@ -322,7 +292,7 @@ public class EditItemActivity extends AppCompatActivity {
             });
         } else {
             // Update item without changing the image
-            firebaseManager.updateItem(currentItem, new OnCompleteListener<Item>() {
+            firebaseManager.updateItem(currentItem, loadedFields, new OnCompleteListener<Item>() {
                 @Override
                 public void onComplete(@NonNull Task<Item> task) {
                     handleUpdateComplete(task);
@@ -333,11 +303,17 @@ public class EditItemActivity extends AppCompatActivity {
 
     // Completely rewritten update handler
     private void handleUpdateComplete(@NonNull Task<Item> task) {
+        if (task.isCanceled()) {
+            AppLog.d(TAG, "Item update cancelled");
+            return;
+        }
+
         // Log task status
-        Log.d(TAG, "Firebase update complete, success=" + task.isSuccessful());
+        AppLog.d(TAG, "Firebase update complete, success={}", task.isSuccessful());
 
         // Set updating to false since we've received a response
         isUpdating = false;
+        uploadHandle = null;
 
         // Direct UI update that bypasses any complex scheduling
         runOnUiThread(new Runnable() {
@@ -346,6 +322,7 @@ public class EditItemActivity extends AppCompatActivity {
                 // Hide progress bar immediately
                 progressBar.setVisibility(View.GONE);
                 buttonSubmit.setEnabled(true);
+                buttonSubmit.setText(R.string.update_item);
 
                 if (task.isSuccessful()) {
                     Toast.makeText(EditItemActivity.this, "Item updated successfully", Toast.LENGTH_SHORT).show();
@@ -362,6 +339,15 @@ public class EditItemActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // The user backed out before the upload finished
+        if (isUpdating && uploadHandle != null) {
+            uploadHandle.cancel();
+        }
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
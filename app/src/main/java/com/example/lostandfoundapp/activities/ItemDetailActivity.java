@@ -4,17 +4,12 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
-import androidx.core.content.ContextCompat;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Base64;
+import android.text.format.DateFormat;
 import android.util.Log;
 import android.view.MenuItem;
 import android.view.View;
@@ -26,7 +21,12 @@ import android.widget.Toast;
 
 import com.example.lostandfoundapp.R;
 import com.example.lostandfoundapp.firebase.FirebaseManager;
+import com.example.lostandfoundapp.firebase.StatusRegistry;
+import com.example.lostandfoundapp.firebase.WriteQueue;
+import com.example.lostandfoundapp.images.ImagePipeline;
 import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.model.ItemMapper;
+import com.example.lostandfoundapp.utils.AppLog;
 import com.example.lostandfoundapp.utils.Constants;
 import com.example.lostandfoundapp.utils.FirebaseSessionManager;
 import com.google.android.gms.tasks.OnCompleteListener;
@@ -34,7 +34,8 @@ import com.google.android.gms.tasks.Task;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.ValueEventListener;
-import com.squareup.picasso.Picasso;
+
+import java.util.Date;
 
 public class ItemDetailActivity extends AppCompatActivity {
     private static final String TAG = "ItemDetailActivity";
@@ -53,6 +54,8 @@ public class ItemDetailActivity extends AppCompatActivity {
     private FirebaseSessionManager sessionManager;
     private String itemId;
     private Item currentItem;
+    // Latest status change not yet accepted by the server
+    private WriteQueue.Operation pendingStatusWrite;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -96,7 +99,7 @@ public class ItemDetailActivity extends AppCompatActivity {
             return;
         }
 
-        Log.d(TAG, "Loading item details for ID: " + itemId);
+        AppLog.d(TAG, "Loading item details for ID: {}", itemId);
 
         // Set click listeners for contact buttons
         buttonCall.setOnClickListener(new View.OnClickListener() {
@@ -154,17 +157,15 @@ public class ItemDetailActivity extends AppCompatActivity {
         firebaseManager.getItemDetails(itemId, new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                Log.d(TAG, "Item details retrieved for ID: " + itemId);
+                AppLog.d(TAG, "Item details retrieved for ID: {}", itemId);
                 progressBar.setVisibility(View.GONE);
 
                 try {
                     // Get item
-                    currentItem = dataSnapshot.getValue(Item.class);
+                    currentItem = ItemMapper.fromValue(dataSnapshot.getKey(), dataSnapshot.getValue());
 
                     if (currentItem != null) {
-                        // Set Firebase ID for reference
-                        currentItem.setFirebase_id(dataSnapshot.getKey());
-                        Log.d(TAG, "Item loaded: " + currentItem.getTitle());
+                        AppLog.d(TAG, "Item loaded: {}", currentItem.getTitle());
 
                         // Display item details
                         displayItemDetails(currentItem);
@@ -218,111 +219,46 @@ public class ItemDetailActivity extends AppCompatActivity {
 
             // Set date
             String date = "Unknown date";
-            if (item.getCreated_at() != null && !item.getCreated_at().isEmpty()) {
-                try {
-                    date = item.getCreated_at().substring(0, Math.min(item.getCreated_at().length(), 10));
-                } catch (Exception e) {
-                    Log.e(TAG, "Error formatting date", e);
-                }
+            if (item.getCreated_at() > 0) {
+                // Device locale and time zone
+                date = DateFormat.getMediumDateFormat(this).format(new Date(item.getCreated_at()));
             }
             textViewDate.setText("Posted on: " + date);
 
             // Set status
-            if (item.getStatus() != null) {
-                textViewStatus.setText(item.getStatus().getName());
-                try {
-                    textViewStatus.setBackgroundColor(android.graphics.Color.parseColor(item.getStatus().getColor()));
-                } catch (Exception e) {
-                    Log.e(TAG, "Error parsing status color", e);
-                    textViewStatus.setBackgroundColor(ContextCompat.getColor(this, R.color.colorPrimary));
-                }
-            } else {
-                // Fallback status based on status_id
-                if (item.getStatus_id() == Constants.STATUS_LOST) {
-                    textViewStatus.setText("Lost");
-                    textViewStatus.setBackgroundColor(ContextCompat.getColor(this, R.color.statusLost));
-                } else if (item.getStatus_id() == Constants.STATUS_FOUND) {
-                    textViewStatus.setText("Found");
-                    textViewStatus.setBackgroundColor(ContextCompat.getColor(this, R.color.statusFound));
-                } else if (item.getStatus_id() == Constants.STATUS_CLAIMED) {
-                    textViewStatus.setText("Claimed");
-                    textViewStatus.setBackgroundColor(ContextCompat.getColor(this, R.color.statusClaimed));
-                }
-            }
+            StatusRegistry statusRegistry = StatusRegistry.getInstance();
+            textViewStatus.setText(statusRegistry.getLabel(item.getStatus_id()));
+            textViewStatus.setBackgroundColor(statusRegistry.getColor(item.getStatus_id()));
 
             // Load image if available
-            if (item.getImage() != null && !item.getImage().isEmpty()) {
-                Log.d(TAG, "Image available, starts with: " +
-                        (item.getImage().length() > 20 ? item.getImage().substring(0, 20) + "..." : item.getImage()));
-
-                if (item.getImage().startsWith("data:image")) {
-                    try {
-                        // Extract the base64 content (remove the data:image/jpeg;base64, prefix)
-                        String base64Image = item.getImage();
-                        if (base64Image.contains(",")) {
-                            base64Image = base64Image.substring(base64Image.indexOf(",") + 1);
-
-                            // Decode and display
-                            byte[] decodedString = Base64.decode(base64Image, Base64.DEFAULT);
-                            Bitmap decodedBitmap = BitmapFactory.decodeByteArray(decodedString, 0, decodedString.length);
-
-                            if (decodedBitmap != null) {
-                                Log.d(TAG, "Successfully decoded Base64 image");
-                                imageViewItem.setImageBitmap(decodedBitmap);
-                            } else {
-                                Log.e(TAG, "Failed to decode Base64 to bitmap");
-                                imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-                            }
-                        } else {
-                            Log.e(TAG, "Invalid Base64 format (no comma found)");
-                            imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error decoding Base64 image", e);
-                        imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-                    }
-                } else {
-                    // It's a regular URL (for backward compatibility)
-                    try {
-                        Log.d(TAG, "Loading image with Picasso");
-                        Picasso.get()
-                                .load(item.getImage())
-                                .placeholder(R.drawable.image_placeholder_background)
-                                .error(R.drawable.image_placeholder_background)
-                                .into(imageViewItem);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error loading image with Picasso", e);
-                        imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-                    }
-                }
-            } else {
-                Log.d(TAG, "No image available");
-                imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-            }
+            int imageWidth = imageViewItem.getWidth() > 0 ?
+                    imageViewItem.getWidth() : getResources().getDisplayMetrics().widthPixels;
+            ImagePipeline.getInstance().loadDetail(imageViewItem, item, imageWidth,
+                    getResources().getDimensionPixelSize(R.dimen.item_detail_image_height));
 
             // Update claim/found button based on status and user
             String currentUserId = sessionManager.getUserId();
             boolean isOwner = item.getUser_id() != null && item.getUser_id().equals(currentUserId);
 
-            Log.d(TAG, "Current user ID: " + currentUserId + ", Item owner ID: " + item.getUser_id() + ", Is owner: " + isOwner);
+            AppLog.d(TAG, "Current user ID: {}, Item owner ID: {}, Is owner: {}", currentUserId, item.getUser_id(), isOwner);
 
             if (isOwner) {
                 if (item.getStatus_id() == Constants.STATUS_LOST) {
                     buttonClaimFound.setText("Mark as Found");
                     buttonClaimFound.setVisibility(View.VISIBLE);
-                    Log.d(TAG, "Showing 'Mark as Found' button");
+                    AppLog.d(TAG, "Showing 'Mark as Found' button");
                 } else if (item.getStatus_id() == Constants.STATUS_FOUND) {
                     buttonClaimFound.setText("Mark as Claimed");
                     buttonClaimFound.setVisibility(View.VISIBLE);
-                    Log.d(TAG, "Showing 'Mark as Claimed' button");
+                    AppLog.d(TAG, "Showing 'Mark as Claimed' button");
                 } else {
                     buttonClaimFound.setVisibility(View.GONE);
-                    Log.d(TAG, "Hiding claim/found button - already claimed");
+                    AppLog.d(TAG, "Hiding claim/found button - already claimed");
                 }
             } else {
                 // Non-owner can't change status
                 buttonClaimFound.setVisibility(View.GONE);
-                Log.d(TAG, "Hiding claim/found button - not owner");
+                AppLog.d(TAG, "Hiding claim/found button - not owner");
             }
 
             // Update edit button visibility based on ownership
@@ -358,70 +294,50 @@ public class ItemDetailActivity extends AppCompatActivity {
         int newStatusId;
         if (currentItem.getStatus_id() == Constants.STATUS_LOST) {
             newStatusId = Constants.STATUS_FOUND;
-            Log.d(TAG, "Updating status from LOST to FOUND");
+            AppLog.d(TAG, "Updating status from LOST to FOUND");
         } else if (currentItem.getStatus_id() == Constants.STATUS_FOUND) {
             newStatusId = Constants.STATUS_CLAIMED;
-            Log.d(TAG, "Updating status from FOUND to CLAIMED");
+            AppLog.d(TAG, "Updating status from FOUND to CLAIMED");
         } else {
-            Log.d(TAG, "No valid status transition available");
+            AppLog.d(TAG, "No valid status transition available");
             return;
         }
 
-        // Show progress
+        // Show the new status right away. The write is queued on the device, so it
+        // survives losing the connection or the app, and a quick second tap
+        // coalesces with it into a single write
+        currentItem.setStatus_id(newStatusId);
+        displayItemDetails(currentItem);
         progressBar.setVisibility(View.VISIBLE);
-        buttonClaimFound.setEnabled(false);
 
-        // Add safety timeout for status update
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
+        final WriteQueue.Operation operation =
+                firebaseManager.updateItemStatus(currentItem.getFirebase_id(), newStatusId);
+        pendingStatusWrite = operation;
+        operation.getCommitted().addOnCompleteListener(this, new OnCompleteListener<Void>() {
             @Override
-            public void run() {
-                if (progressBar.getVisibility() == View.VISIBLE) {
-                    Log.d(TAG, "Safety timeout triggered for status update");
-                    progressBar.setVisibility(View.GONE);
-                    buttonClaimFound.setEnabled(true);
+            public void onComplete(@NonNull Task<Void> task) {
+                AppLog.d(TAG, "Status update complete, success={}", task.isSuccessful());
+                if (operation != pendingStatusWrite) {
+                    // A newer status change is still on its way
+                    return;
+                }
+                pendingStatusWrite = null;
+                progressBar.setVisibility(View.GONE);
 
-                    // Update UI with new status anyway
-                    currentItem.setStatus_id(newStatusId);
-                    displayItemDetails(currentItem);
+                if (task.isSuccessful()) {
+                    AppLog.d(TAG, "Status updated successfully");
+                    Toast.makeText(ItemDetailActivity.this, "Status updated successfully", Toast.LENGTH_SHORT).show();
+                } else {
+                    String errorMessage = task.getException() != null ?
+                            task.getException().getMessage() :
+                            "Failed to update status";
 
-                    Toast.makeText(ItemDetailActivity.this, "Status updated", Toast.LENGTH_SHORT).show();
-                }
-            }
-        }, 1000); // 5 second safety timeout
+                    Log.e(TAG, "Failed to update status: " + errorMessage, task.getException());
+                    Toast.makeText(ItemDetailActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
 
-        // Update status in Firebase
-        firebaseManager.updateItemStatus(currentItem.getFirebase_id(), newStatusId, new OnCompleteListener<Void>() {
-            @Override
-            public void onComplete(@NonNull Task<Void> task) {
-                Log.d(TAG, "Status update complete, success=" + task.isSuccessful());
-
-                // Ensure we run on the UI thread
-                runOnUiThread(new Runnable() {
-                    @Override
-                    public void run() {
-                        progressBar.setVisibility(View.GONE);
-                        buttonClaimFound.setEnabled(true);
-
-                        if (task.isSuccessful()) {
-                            // Status updated successfully
-                            Log.d(TAG, "Status updated successfully");
-                            Toast.makeText(ItemDetailActivity.this, "Status updated successfully", Toast.LENGTH_SHORT).show();
-
-                            // Update current item status
-                            currentItem.setStatus_id(newStatusId);
-
-                            // Update UI with new status
-                            displayItemDetails(currentItem);
-                        } else {
-                            String errorMessage = task.getException() != null ?
-                                    task.getException().getMessage() :
-                                    "Failed to update status";
-
-                            Log.e(TAG, "Failed to update status: " + errorMessage, task.getException());
-                            Toast.makeText(ItemDetailActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
-                        }
-                    }
-                });
+                    // Show the status the server kept
+                    loadItemDetails();
+                }
             }
         });
     }
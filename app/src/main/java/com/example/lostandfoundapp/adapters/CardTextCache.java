@@ -0,0 +1,150 @@
+package com.example.lostandfoundapp.adapters;
+
+import android.os.Process;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+import androidx.core.text.PrecomputedTextCompat;
+
+import com.example.lostandfoundapp.model.Item;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Card titles and descriptions measured ahead of time. Measuring a long,
+ * multi-paragraph description is the costly part of laying out a card, so
+ * it runs here on a background thread for the rows around the ones being
+ * bound, and binds only apply the result. Only a window of each list is
+ * measured ahead, so prefetching never evicts the rows on screen. Entries
+ * are keyed by item and updated_at, like decoded images, so an edit is
+ * measured again.
+ *
+ * Precomputed text is only valid for the text style it was measured with;
+ * an entry made with other params, e.g. after a font size change, counts
+ * as missing.
+ */
+public class CardTextCache {
+    // Enough for several pages of every list
+    private static final int MAX_ENTRIES = 300;
+    // Cards measured ahead for one list, a few screens; the windows of all
+    // lists together stay well inside MAX_ENTRIES
+    public static final int PREFETCH_WINDOW = 40;
+
+    private static CardTextCache instance;
+
+    /**
+     * Measured title and description of one card
+     */
+    public static final class CardText {
+        private final PrecomputedTextCompat title;
+        private final PrecomputedTextCompat description;
+
+        CardText(PrecomputedTextCompat title, PrecomputedTextCompat description) {
+            this.title = title;
+            this.description = description;
+        }
+
+        public PrecomputedTextCompat getTitle() {
+            return title;
+        }
+
+        public PrecomputedTextCompat getDescription() {
+            return description;
+        }
+    }
+
+    private final LruCache<String, CardText> cache = new LruCache<>(MAX_ENTRIES);
+    // Keys queued for measuring, so a window asked for again isn't queued twice
+    private final Set<String> pending = Collections.synchronizedSet(new HashSet<String>());
+    private final ExecutorService executor;
+
+    private CardTextCache() {
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable work) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Never compete with the main and render threads
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        work.run();
+                    }
+                }, "CardText");
+            }
+        });
+    }
+
+    // Get singleton instance
+    public static synchronized CardTextCache getInstance() {
+        if (instance == null) {
+            instance = new CardTextCache();
+        }
+        return instance;
+    }
+
+    /**
+     * The measured text of an item's card, null if it is not measured yet
+     * or was measured for another style
+     */
+    @Nullable
+    public CardText get(Item item, PrecomputedTextCompat.Params titleParams,
+                        PrecomputedTextCompat.Params descriptionParams) {
+        CardText text = cache.get(key(item));
+        if (text == null
+                || !text.title.getParams().equals(titleParams)
+                || !text.description.getParams().equals(descriptionParams)) {
+            return null;
+        }
+        return text;
+    }
+
+    /**
+     * Measure the cards of these items in the background, in list order so
+     * the rows on screen first are ready first. At most PREFETCH_WINDOW
+     * items are taken.
+     */
+    public void prefetch(List<Item> items, final PrecomputedTextCompat.Params titleParams,
+                         final PrecomputedTextCompat.Params descriptionParams) {
+        int count = Math.min(items.size(), PREFETCH_WINDOW);
+        for (int i = 0; i < count; i++) {
+            final Item item = items.get(i);
+            final String key = key(item);
+            if (get(item, titleParams, descriptionParams) != null || !pending.add(key)) {
+                continue;
+            }
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        // Another list may have asked for the same card meanwhile
+                        if (get(item, titleParams, descriptionParams) != null) {
+                            return;
+                        }
+                        cache.put(key, new CardText(
+                                PrecomputedTextCompat.create(textOf(item.getTitle()), titleParams),
+                                PrecomputedTextCompat.create(textOf(item.getDescription()), descriptionParams)));
+                    } finally {
+                        pending.remove(key);
+                    }
+                }
+            });
+        }
+    }
+
+    private static String key(Item item) {
+        // Items without an id fall back to their identity, they are never shared between lists
+        String id = item.getFirebase_id() != null ?
+                item.getFirebase_id() : String.valueOf(System.identityHashCode(item));
+        return id + "@" + item.getUpdated_at();
+    }
+
+    private static CharSequence textOf(@Nullable String text) {
+        return text != null ? text : "";
+    }
+}
@@ -1,11 +1,6 @@
 package com.example.lostandfoundapp.adapters;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Color;
-import android.util.Base64;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -13,49 +8,144 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.core.content.ContextCompat;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.lostandfoundapp.R;
+import com.example.lostandfoundapp.firebase.StatusRegistry;
+import com.example.lostandfoundapp.images.ImagePipeline;
+import com.example.lostandfoundapp.metrics.Counter;
+import com.example.lostandfoundapp.metrics.LatencyHistogram;
+import com.example.lostandfoundapp.metrics.Metrics;
+import com.example.lostandfoundapp.metrics.Sections;
 import com.example.lostandfoundapp.model.Item;
-import com.example.lostandfoundapp.utils.Constants;
-import com.squareup.picasso.Picasso;
+import com.example.lostandfoundapp.utils.AppLog;
 
 import java.util.List;
+import java.util.Objects;
 
-public class ItemAdapter extends RecyclerView.Adapter<ItemAdapter.ItemViewHolder> {
+public class ItemAdapter extends ListAdapter<Item, ItemAdapter.ItemViewHolder> {
     private static final String TAG = "ItemAdapter";
+    private static final String SECTION_BIND = "ItemAdapter.bind";
+    private static final LatencyHistogram BIND_TIME = Metrics.histogram("adapter.bind");
+    // Cards inflated on the main thread because no pre-inflated one was left
+    private static final Counter CARDS_INFLATED = Metrics.counter("adapter.card_inflated");
+    // Cards bound before their text was measured, so the bind laid the text out itself
+    private static final Counter TEXT_NOT_MEASURED = Metrics.counter("adapter.text_not_measured");
+
+    // The only view type, rows are shared between lists through ItemViewPool
+    static final int VIEW_TYPE_CARD = 0;
+
     private Context context;
-    private List<Item> itemList;
     private OnItemClickListener listener;
+    private ImagePipeline imagePipeline;
+    private StatusRegistry statusRegistry;
+    private int thumbnailSize;
+    private CardTextCache cardTextCache;
+    // Text style of the card's title and description, known once the first card exists
+    private PrecomputedTextCompat.Params titleParams;
+    private PrecomputedTextCompat.Params descriptionParams;
+    // Rows handed to the text cache, moved along as binds come near either end
+    private int prefetchFrom;
+    private int prefetchUntil;
+    private int lastBoundPosition;
 
     public interface OnItemClickListener {
         void onItemClick(Item item);
     }
 
-    public ItemAdapter(Context context, List<Item> itemList, OnItemClickListener listener) {
+    /**
+     * Items are the same if they have the same Firebase key, and their
+     * contents are the same if every field shown on the card is equal.
+     * Diffs run on a background thread; only changed rows rebind.
+     */
+    private static final DiffUtil.ItemCallback<Item> DIFF_CALLBACK = new DiffUtil.ItemCallback<Item>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return Objects.equals(oldItem.getFirebase_id(), newItem.getFirebase_id());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                    && Objects.equals(oldItem.getLocation(), newItem.getLocation())
+                    && oldItem.getStatus_id() == newItem.getStatus_id()
+                    && Objects.equals(oldItem.getThumbnail_ref(), newItem.getThumbnail_ref())
+                    && Objects.equals(oldItem.getImage(), newItem.getImage())
+                    && oldItem.getUpdated_at() == newItem.getUpdated_at();
+        }
+    };
+
+    public ItemAdapter(Context context, OnItemClickListener listener) {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
         this.context = context;
-        this.itemList = itemList;
         this.listener = listener;
+        this.imagePipeline = ImagePipeline.getInstance();
+        this.statusRegistry = StatusRegistry.getInstance();
+        this.thumbnailSize = context.getResources().getDimensionPixelSize(R.dimen.item_card_image_size);
+        this.cardTextCache = CardTextCache.getInstance();
+    }
+
+    @Override
+    public void onCurrentListChanged(@NonNull List<Item> previousList, @NonNull List<Item> currentList) {
+        super.onCurrentListChanged(previousList, currentList);
+        // Measure new and changed cards around the rows on screen before they rebind
+        prefetchAround(lastBoundPosition);
     }
 
     @NonNull
     @Override
     public ItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(context).inflate(R.layout.item_card, parent, false);
-        return new ItemViewHolder(view);
+        // Take a card inflated ahead of time if there is one left
+        ItemViewPool pool = ItemViewPool.from(parent.getContext());
+        View view = pool != null ? pool.takeCard() : null;
+        if (view == null) {
+            CARDS_INFLATED.increment();
+            view = LayoutInflater.from(context).inflate(R.layout.item_card, parent, false);
+        }
+        ItemViewHolder holder = new ItemViewHolder(view);
+
+        if (titleParams == null) {
+            // Every card shares one style, so the first card's text views speak for all
+            titleParams = TextViewCompat.getTextMetricsParams(holder.textViewTitle);
+            descriptionParams = TextViewCompat.getTextMetricsParams(holder.textViewDescription);
+            prefetchAround(0);
+        }
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull ItemViewHolder holder, int position) {
-        Item item = itemList.get(position);
+        long start = Sections.begin(SECTION_BIND);
+        try {
+            bind(holder, position);
+        } finally {
+            Sections.end(BIND_TIME, start);
+        }
+    }
+
+    private void bind(@NonNull ItemViewHolder holder, int position) {
+        Item item = getItem(position);
+        prefetchNear(position);
 
         // Debug log
-        Log.d(TAG, "Binding item at position " + position + ": " + item.getTitle());
+        AppLog.d(TAG, "Binding item at position {}: {}", position, item.getTitle());
 
-        // Set item details
-        holder.textViewTitle.setText(item.getTitle());
-        holder.textViewDescription.setText(item.getDescription());
+        // Set item details, measured in the background when the list arrived
+        CardTextCache.CardText text = cardTextCache.get(item, titleParams, descriptionParams);
+        if (text != null) {
+            TextViewCompat.setPrecomputedText(holder.textViewTitle, text.getTitle());
+            TextViewCompat.setPrecomputedText(holder.textViewDescription, text.getDescription());
+        } else {
+            TEXT_NOT_MEASURED.increment();
+            holder.textViewTitle.setText(item.getTitle());
+            holder.textViewDescription.setText(item.getDescription());
+        }
 
         // Set location if available
         if (item.getLocation() != null && !item.getLocation().isEmpty()) {
@@ -66,81 +156,12 @@ public class ItemAdapter extends RecyclerView.Adapter<ItemAdapter.ItemViewHolder
         }
 
         // Set status
-        if (item.getStatus() != null) {
-            holder.textViewStatus.setText(item.getStatus().getName());
-            try {
-                holder.textViewStatus.setBackgroundColor(Color.parseColor(item.getStatus().getColor()));
-            } catch (Exception e) {
-                Log.e(TAG, "Error parsing color: " + item.getStatus().getColor(), e);
-                holder.textViewStatus.setBackgroundColor(ContextCompat.getColor(context, R.color.colorPrimary));
-            }
-        } else {
-            // Fallback status based on status_id
-            if (item.getStatus_id() == Constants.STATUS_LOST) {
-                holder.textViewStatus.setText("Lost");
-                holder.textViewStatus.setBackgroundColor(ContextCompat.getColor(context, R.color.statusLost));
-            } else if (item.getStatus_id() == Constants.STATUS_FOUND) {
-                holder.textViewStatus.setText("Found");
-                holder.textViewStatus.setBackgroundColor(ContextCompat.getColor(context, R.color.statusFound));
-            } else if (item.getStatus_id() == Constants.STATUS_CLAIMED) {
-                holder.textViewStatus.setText("Claimed");
-                holder.textViewStatus.setBackgroundColor(ContextCompat.getColor(context, R.color.statusClaimed));
-            }
-        }
+        // Label and color come pre-parsed from the registry
+        holder.textViewStatus.setText(statusRegistry.getLabel(item.getStatus_id()));
+        holder.textViewStatus.setBackgroundColor(statusRegistry.getColor(item.getStatus_id()));
 
-        // Reset image first to avoid flickering
-        holder.imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-
-        // Load image if available
-        if (item.getImage() != null && !item.getImage().isEmpty()) {
-            Log.d(TAG, "Image available for item: " + item.getTitle() + ", starts with: " +
-                    (item.getImage().length() > 20 ? item.getImage().substring(0, 20) + "..." : item.getImage()));
-
-            if (item.getImage().startsWith("data:image")) {
-                try {
-                    // It's a Base64 image - need to decode it manually
-                    // Extract the base64 content (remove the data:image/jpeg;base64, prefix)
-                    String base64Image = item.getImage();
-                    if (base64Image.contains(",")) {
-                        base64Image = base64Image.substring(base64Image.indexOf(",") + 1);
-
-                        // Decode and display
-                        byte[] decodedString = Base64.decode(base64Image, Base64.DEFAULT);
-                        Bitmap decodedBitmap = BitmapFactory.decodeByteArray(decodedString, 0, decodedString.length);
-
-                        if (decodedBitmap != null) {
-                            holder.imageViewItem.setImageBitmap(decodedBitmap);
-                            Log.d(TAG, "Successfully loaded Base64 image for: " + item.getTitle());
-                        } else {
-                            Log.e(TAG, "Failed to decode Base64 to bitmap for: " + item.getTitle());
-                            holder.imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-                        }
-                    } else {
-                        Log.e(TAG, "Invalid Base64 format (no comma found) for: " + item.getTitle());
-                        holder.imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error decoding Base64 image for item: " + item.getTitle(), e);
-                    holder.imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-                }
-            } else {
-                // It's a regular URL (for backward compatibility)
-                try {
-                    Picasso.get()
-                            .load(item.getImage())
-                            .placeholder(R.drawable.image_placeholder_background)
-                            .error(R.drawable.image_placeholder_background)
-                            .into(holder.imageViewItem);
-                    Log.d(TAG, "Using Picasso to load image URL for: " + item.getTitle());
-                } catch (Exception e) {
-                    Log.e(TAG, "Error loading image with Picasso for: " + item.getTitle(), e);
-                    holder.imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-                }
-            }
-        } else {
-            Log.d(TAG, "No image for item: " + item.getTitle());
-            holder.imageViewItem.setImageResource(R.drawable.image_placeholder_background);
-        }
+        // Decode and cache happen off the main thread; the pipeline shows a placeholder meanwhile
+        imagePipeline.loadThumbnail(holder.imageViewItem, item, thumbnailSize, thumbnailSize);
 
         // Set click listener
         holder.itemView.setOnClickListener(new View.OnClickListener() {
@@ -148,15 +169,53 @@ public class ItemAdapter extends RecyclerView.Adapter<ItemAdapter.ItemViewHolder
             public void onClick(View v) {
                 int adapterPosition = holder.getAdapterPosition();
                 if (adapterPosition != RecyclerView.NO_POSITION) {
-                    listener.onItemClick(itemList.get(adapterPosition));
+                    listener.onItemClick(getItem(adapterPosition));
                 }
             }
         });
     }
 
+    // Move the window once a bind comes within a quarter of it from either end
+    private void prefetchNear(int position) {
+        lastBoundPosition = position;
+        int margin = CardTextCache.PREFETCH_WINDOW / 4;
+        if ((position >= prefetchUntil - margin && prefetchUntil < getItemCount())
+                || (position < prefetchFrom + margin && prefetchFrom > 0)) {
+            prefetchAround(position);
+        }
+    }
+
+    // Measure a window of cards centred on a row, rows on either side may be next on screen
+    private void prefetchAround(int position) {
+        if (titleParams == null) {
+            return;
+        }
+        List<Item> items = getCurrentList();
+        prefetchFrom = Math.max(0, Math.min(position, items.size()) - CardTextCache.PREFETCH_WINDOW / 2);
+        prefetchUntil = Math.min(items.size(), prefetchFrom + CardTextCache.PREFETCH_WINDOW);
+        cardTextCache.prefetch(items.subList(prefetchFrom, prefetchUntil), titleParams, descriptionParams);
+    }
+
     @Override
-    public int getItemCount() {
-        return itemList.size();
+    public void onViewRecycled(@NonNull ItemViewHolder holder) {
+        super.onViewRecycled(holder);
+        // Drop the pending decode so it doesn't land on a rebound view
+        imagePipeline.cancel(holder.imageViewItem);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableId(getItem(position).getFirebase_id());
+    }
+
+    // 64-bit FNV-1a hash of the Firebase key, so an item's id needs no bookkeeping
+    static long stableId(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
     }
 
     public static class ItemViewHolder extends RecyclerView.ViewHolder {
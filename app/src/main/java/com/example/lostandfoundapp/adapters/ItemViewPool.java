@@ -0,0 +1,127 @@
+package com.example.lostandfoundapp.adapters;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.lostandfoundapp.R;
+
+import java.util.ArrayDeque;
+
+/**
+ * Item cards shared by every item list in an activity: one RecycledViewPool
+ * that all the lists recycle into and take from, and a screenful of
+ * item_card views inflated off the main thread once startup goes idle, so
+ * a list's first fling creates its rows without inflating them.
+ *
+ * Views are inflated with the activity's theme and must not outlive it, so
+ * the pool belongs to the activity that hosts the lists (see Host) rather
+ * than to the process.
+ */
+public class ItemViewPool {
+    /**
+     * Implemented by activities whose fragments show item lists
+     */
+    public interface Host {
+        ItemViewPool getItemViewPool();
+    }
+
+    // Rows kept for reuse, a few screens' worth so the lists can hand rows to each other
+    private static final int MAX_RECYCLED_CARDS = 30;
+    // Cards inflated beyond a screenful, for the rows a fling and prefetch bring in next
+    private static final int EXTRA_CARDS = 2;
+
+    private final Context context;
+    private final RecyclerView.RecycledViewPool recycledViews = new RecyclerView.RecycledViewPool();
+    // Pre-inflated cards not yet given to an adapter, only touched on the main thread
+    private final ArrayDeque<View> inflatedCards = new ArrayDeque<>();
+    private boolean prewarmStarted = false;
+
+    public ItemViewPool(Context activityContext) {
+        context = activityContext;
+        recycledViews.setMaxRecycledViews(ItemAdapter.VIEW_TYPE_CARD, MAX_RECYCLED_CARDS);
+    }
+
+    /**
+     * The pool of the activity a view or fragment context belongs to, null
+     * if that activity keeps none
+     */
+    @Nullable
+    public static ItemViewPool from(@Nullable Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Host) {
+                return ((Host) context).getItemViewPool();
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    /**
+     * Make a list recycle through the shared pool. Call before setting its adapter.
+     */
+    public void attach(RecyclerView recyclerView, LinearLayoutManager layoutManager) {
+        recyclerView.setRecycledViewPool(recycledViews);
+        // Rows of a list whose view is torn down go back to the pool for the next list
+        layoutManager.setRecycleChildrenOnDetach(true);
+    }
+
+    /**
+     * Inflate a screenful of cards on a background thread once the main
+     * thread has nothing else to do, so it never delays the first frame
+     */
+    public void prewarm() {
+        if (prewarmStarted) {
+            return;
+        }
+        prewarmStarted = true;
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                inflateCards();
+                return false;
+            }
+        });
+    }
+
+    /**
+     * A pre-inflated card, null once they are used up
+     */
+    @Nullable
+    View takeCard() {
+        return inflatedCards.poll();
+    }
+
+    private void inflateCards() {
+        // Layout params are generated by the parent, so the cards come out as a list would inflate them.
+        // A RecyclerView asks its layout manager for them and throws without one.
+        RecyclerView parent = new RecyclerView(context);
+        parent.setLayoutManager(new LinearLayoutManager(context));
+        AsyncLayoutInflater inflater = new AsyncLayoutInflater(context);
+        AsyncLayoutInflater.OnInflateFinishedListener onInflated = new AsyncLayoutInflater.OnInflateFinishedListener() {
+            @Override
+            public void onInflateFinished(@NonNull View view, int resid, @Nullable ViewGroup parent) {
+                inflatedCards.add(view);
+            }
+        };
+        for (int i = 0; i < screenfulOfCards(); i++) {
+            inflater.inflate(R.layout.item_card, parent, onInflated);
+        }
+    }
+
+    // Cards that fit on the screen at their smallest, the image height
+    private int screenfulOfCards() {
+        int screenHeight = context.getResources().getDisplayMetrics().heightPixels;
+        int cardHeight = context.getResources().getDimensionPixelSize(R.dimen.item_card_image_size);
+        return Math.min(MAX_RECYCLED_CARDS, screenHeight / cardHeight + 1 + EXTRA_CARDS);
+    }
+}
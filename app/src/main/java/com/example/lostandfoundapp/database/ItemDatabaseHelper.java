@@ -0,0 +1,120 @@
+package com.example.lostandfoundapp.database;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * Schema of the on-device database: the item table, a local copy of the
+ * items node, and the queue of writes still to be sent to Firebase
+ */
+public class ItemDatabaseHelper extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "lost_and_found.db";
+    private static final int DATABASE_VERSION = 3;
+
+    private static ItemDatabaseHelper instance;
+
+    public static final String TABLE_ITEMS = "items";
+
+    // Column names match the Firebase field names
+    public static final String COLUMN_FIREBASE_ID = "firebase_id";
+    public static final String COLUMN_USER_ID = "user_id";
+    public static final String COLUMN_TITLE = "title";
+    public static final String COLUMN_DESCRIPTION = "description";
+    public static final String COLUMN_IMAGE = "image";
+    public static final String COLUMN_THUMBNAIL_REF = "thumbnail_ref";
+    public static final String COLUMN_IMAGE_REF = "image_ref";
+    public static final String COLUMN_STATUS_ID = "status_id";
+    public static final String COLUMN_LOCATION = "location";
+    public static final String COLUMN_CONTACT_NAME = "contact_name";
+    public static final String COLUMN_CONTACT_PHONE = "contact_phone";
+    public static final String COLUMN_CONTACT_EMAIL = "contact_email";
+    public static final String COLUMN_CREATED_AT = "created_at";
+    public static final String COLUMN_UPDATED_AT = "updated_at";
+
+    public static final String TABLE_PENDING_WRITES = "pending_writes";
+
+    // One row per database path, a newer write to the path replaces the row
+    public static final String COLUMN_PATH = "path";
+    public static final String COLUMN_VALUE = "value";
+    public static final String COLUMN_VERSION = "version";
+    public static final String COLUMN_ATTEMPTS = "attempts";
+
+    private static final String CREATE_TABLE_ITEMS = "CREATE TABLE " + TABLE_ITEMS + " ("
+            + COLUMN_FIREBASE_ID + " TEXT PRIMARY KEY NOT NULL, "
+            + COLUMN_USER_ID + " TEXT, "
+            + COLUMN_TITLE + " TEXT, "
+            + COLUMN_DESCRIPTION + " TEXT, "
+            + COLUMN_IMAGE + " TEXT, "
+            + COLUMN_THUMBNAIL_REF + " TEXT, "
+            + COLUMN_IMAGE_REF + " TEXT, "
+            + COLUMN_STATUS_ID + " INTEGER NOT NULL DEFAULT 0, "
+            + COLUMN_LOCATION + " TEXT, "
+            + COLUMN_CONTACT_NAME + " TEXT, "
+            + COLUMN_CONTACT_PHONE + " TEXT, "
+            + COLUMN_CONTACT_EMAIL + " TEXT, "
+            + COLUMN_CREATED_AT + " INTEGER NOT NULL DEFAULT 0, "
+            + COLUMN_UPDATED_AT + " INTEGER NOT NULL DEFAULT 0)";
+
+    // Status and user lookups also order by key, so the key is part of the index
+    private static final String CREATE_INDEX_STATUS = "CREATE INDEX idx_items_status ON "
+            + TABLE_ITEMS + " (" + COLUMN_STATUS_ID + ", " + COLUMN_FIREBASE_ID + ")";
+    private static final String CREATE_INDEX_USER = "CREATE INDEX idx_items_user ON "
+            + TABLE_ITEMS + " (" + COLUMN_USER_ID + ", " + COLUMN_STATUS_ID + ")";
+    private static final String CREATE_INDEX_CREATED_AT = "CREATE INDEX idx_items_created_at ON "
+            + TABLE_ITEMS + " (" + COLUMN_CREATED_AT + ")";
+
+    private static final String CREATE_TABLE_PENDING_WRITES = "CREATE TABLE IF NOT EXISTS "
+            + TABLE_PENDING_WRITES + " ("
+            + COLUMN_PATH + " TEXT PRIMARY KEY NOT NULL, "
+            + COLUMN_VALUE + " TEXT NOT NULL, "
+            + COLUMN_VERSION + " INTEGER NOT NULL, "
+            + COLUMN_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0)";
+
+    private ItemDatabaseHelper(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    // Same schema in another file, so tests never touch the app's data
+    ItemDatabaseHelper(Context context, String databaseName) {
+        super(context.getApplicationContext(), databaseName, null, DATABASE_VERSION);
+    }
+
+    /**
+     * One helper per process, shared by the item store and the write queue
+     */
+    public static synchronized ItemDatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new ItemDatabaseHelper(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // Reads on the UI's behalf should not wait for sync writes
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        createItemsTable(db);
+        db.execSQL(CREATE_TABLE_PENDING_WRITES);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // The item table is only a cache of Firebase, rebuild it from scratch.
+        // Pending writes are not, they are kept.
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ITEMS);
+        onCreate(db);
+    }
+
+    private static void createItemsTable(SQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE_ITEMS);
+        db.execSQL(CREATE_INDEX_STATUS);
+        db.execSQL(CREATE_INDEX_USER);
+        db.execSQL(CREATE_INDEX_CREATED_AT);
+    }
+}
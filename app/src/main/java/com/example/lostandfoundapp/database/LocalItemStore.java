@@ -0,0 +1,319 @@
+package com.example.lostandfoundapp.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.utils.Constants;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.example.lostandfoundapp.database.ItemDatabaseHelper.*;
+
+/**
+ * On-device copy of the items node. FirebaseManager writes every page and
+ * delta it receives through to this store, and list screens read from it,
+ * so they can show items from disk before the network answers and filter
+ * with indexed queries.
+ *
+ * All work runs on a single background thread in submission order, so a
+ * read always sees the writes queued before it. Reads return Tasks whose
+ * listeners run on the main thread.
+ */
+public class LocalItemStore {
+    private static final String TAG = "LocalItemStore";
+
+    // A cursor row is capped at 2 MB, so very large legacy inline images are not kept
+    private static final int MAX_INLINE_IMAGE_LENGTH = 512 * 1024;
+
+    // Newest first, push keys are chronological
+    private static final String ORDER_NEWEST_FIRST = COLUMN_FIREBASE_ID + " DESC";
+    // Latest server creation time first, as the recent feed pages
+    private static final String ORDER_NEWEST_CREATED_FIRST =
+            COLUMN_CREATED_AT + " DESC, " + COLUMN_FIREBASE_ID + " DESC";
+
+    private static LocalItemStore instance;
+
+    private final ItemDatabaseHelper mHelper;
+    private final ExecutorService mExecutor;
+
+    private LocalItemStore(Context context) {
+        mHelper = ItemDatabaseHelper.getInstance(context);
+        mExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Called once from the Application
+     */
+    public static synchronized void initialize(Context context) {
+        if (instance == null) {
+            instance = new LocalItemStore(context);
+        }
+    }
+
+    public static synchronized LocalItemStore getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("LocalItemStore.initialize() was not called");
+        }
+        return instance;
+    }
+
+    // Writes
+
+    /**
+     * Insert or replace one item
+     */
+    public void putItem(final Item item) {
+        if (item == null || item.getFirebase_id() == null) {
+            return;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mHelper.getWritableDatabase().insertWithOnConflict(TABLE_ITEMS, null,
+                            toValues(item), SQLiteDatabase.CONFLICT_REPLACE);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error storing item " + item.getFirebase_id(), e);
+                }
+            }
+        });
+    }
+
+    public void deleteItem(final String itemId) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mHelper.getWritableDatabase().delete(TABLE_ITEMS,
+                            COLUMN_FIREBASE_ID + " = ?", new String[]{itemId});
+                } catch (Exception e) {
+                    Log.e(TAG, "Error deleting item " + itemId, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Replace every stored item with the given status (or every active item for
+     * Constants.STATUS_ACTIVE) and a key in [fromKey, toKey) by these items,
+     * which drops local rows that were deleted remotely. A null bound is open.
+     */
+    public void replaceRange(final int statusId, final String fromKey, final String toKey,
+                             final List<Item> items) {
+        final List<Item> copy = new ArrayList<>(items);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<String> args = new ArrayList<>();
+                StringBuilder where = new StringBuilder();
+                if (statusId == Constants.STATUS_ACTIVE) {
+                    where.append(COLUMN_STATUS_ID).append(" != ?");
+                    args.add(String.valueOf(Constants.STATUS_CLAIMED));
+                } else {
+                    where.append(COLUMN_STATUS_ID).append(" = ?");
+                    args.add(String.valueOf(statusId));
+                }
+                if (fromKey != null) {
+                    where.append(" AND ").append(COLUMN_FIREBASE_ID).append(" >= ?");
+                    args.add(fromKey);
+                }
+                if (toKey != null) {
+                    where.append(" AND ").append(COLUMN_FIREBASE_ID).append(" < ?");
+                    args.add(toKey);
+                }
+                replaceWhere(where.toString(), args.toArray(new String[0]), copy);
+            }
+        });
+    }
+
+    /**
+     * Replace everything stored for one user by these items
+     */
+    public void replaceUserItems(final String userId, final List<Item> items) {
+        final List<Item> copy = new ArrayList<>(items);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                replaceWhere(COLUMN_USER_ID + " = ?", new String[]{userId}, copy);
+            }
+        });
+    }
+
+    /**
+     * Forget everything, e.g. on logout
+     */
+    public void clear() {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mHelper.getWritableDatabase().delete(TABLE_ITEMS, null, null);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error clearing items", e);
+                }
+            }
+        });
+    }
+
+    // Reads
+
+    /**
+     * Items that are not claimed, newest first, no older than fromKey if given
+     */
+    public Task<List<Item>> loadActiveItems(String fromKey, int limit) {
+        return loadFeed(COLUMN_STATUS_ID + " != ?", String.valueOf(Constants.STATUS_CLAIMED), fromKey, limit);
+    }
+
+    /**
+     * Items with one status, newest first, no older than fromKey if given
+     */
+    public Task<List<Item>> loadItemsWithStatus(int statusId, String fromKey, int limit) {
+        return loadFeed(COLUMN_STATUS_ID + " = ?", String.valueOf(statusId), fromKey, limit);
+    }
+
+    /**
+     * Items that are not claimed and were created at or after a time, latest
+     * creation time first
+     */
+    public Task<List<Item>> loadActiveItemsCreatedSince(long createdSince, int limit) {
+        return query(COLUMN_STATUS_ID + " != ? AND " + COLUMN_CREATED_AT + " >= ?",
+                new String[]{String.valueOf(Constants.STATUS_CLAIMED), String.valueOf(createdSince)},
+                ORDER_NEWEST_CREATED_FIRST, limit);
+    }
+
+    /**
+     * All of a user's items, newest first
+     */
+    public Task<List<Item>> loadItemsOfUser(String userId) {
+        return query(COLUMN_USER_ID + " = ?", new String[]{userId}, 0);
+    }
+
+    private Task<List<Item>> loadFeed(String statusClause, String statusArg, String fromKey, int limit) {
+        if (fromKey == null) {
+            return query(statusClause, new String[]{statusArg}, limit);
+        }
+        return query(statusClause + " AND " + COLUMN_FIREBASE_ID + " >= ?",
+                new String[]{statusArg, fromKey}, limit);
+    }
+
+    private Task<List<Item>> query(String selection, String[] selectionArgs, int limit) {
+        return query(selection, selectionArgs, ORDER_NEWEST_FIRST, limit);
+    }
+
+    private Task<List<Item>> query(final String selection, final String[] selectionArgs,
+                                   final String orderBy, final int limit) {
+        return Tasks.call(mExecutor, new Callable<List<Item>>() {
+            @Override
+            public List<Item> call() {
+                List<Item> items = new ArrayList<>();
+                Cursor cursor = mHelper.getReadableDatabase().query(TABLE_ITEMS, null,
+                        selection, selectionArgs, null, null, orderBy,
+                        limit > 0 ? String.valueOf(limit) : null);
+                try {
+                    ItemCursorReader reader = new ItemCursorReader(cursor);
+                    while (cursor.moveToNext()) {
+                        items.add(reader.read());
+                    }
+                } finally {
+                    cursor.close();
+                }
+                return items;
+            }
+        });
+    }
+
+    // Delete the matching rows and insert the new ones in one transaction
+    private void replaceWhere(String where, String[] args, List<Item> items) {
+        SQLiteDatabase db = mHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_ITEMS, where, args);
+            for (Item item : items) {
+                if (item.getFirebase_id() != null) {
+                    db.insertWithOnConflict(TABLE_ITEMS, null, toValues(item), SQLiteDatabase.CONFLICT_REPLACE);
+                }
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Error replacing items", e);
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static ContentValues toValues(Item item) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_FIREBASE_ID, item.getFirebase_id());
+        values.put(COLUMN_USER_ID, item.getUser_id());
+        values.put(COLUMN_TITLE, item.getTitle());
+        values.put(COLUMN_DESCRIPTION, item.getDescription());
+        String image = item.getImage();
+        values.put(COLUMN_IMAGE, image != null && image.length() <= MAX_INLINE_IMAGE_LENGTH ? image : null);
+        values.put(COLUMN_THUMBNAIL_REF, item.getThumbnail_ref());
+        values.put(COLUMN_IMAGE_REF, item.getImage_ref());
+        values.put(COLUMN_STATUS_ID, item.getStatus_id());
+        values.put(COLUMN_LOCATION, item.getLocation());
+        values.put(COLUMN_CONTACT_NAME, item.getContact_name());
+        values.put(COLUMN_CONTACT_PHONE, item.getContact_phone());
+        values.put(COLUMN_CONTACT_EMAIL, item.getContact_email());
+        values.put(COLUMN_CREATED_AT, item.getCreated_at());
+        values.put(COLUMN_UPDATED_AT, item.getUpdated_at());
+        return values;
+    }
+
+    /**
+     * Reads items from a cursor, looking the column indexes up once
+     */
+    private static class ItemCursorReader {
+        private final Cursor cursor;
+        private final int firebaseId, userId, title, description, image, thumbnailRef, imageRef,
+                statusId, location, contactName, contactPhone, contactEmail, createdAt, updatedAt;
+
+        ItemCursorReader(Cursor cursor) {
+            this.cursor = cursor;
+            firebaseId = cursor.getColumnIndexOrThrow(COLUMN_FIREBASE_ID);
+            userId = cursor.getColumnIndexOrThrow(COLUMN_USER_ID);
+            title = cursor.getColumnIndexOrThrow(COLUMN_TITLE);
+            description = cursor.getColumnIndexOrThrow(COLUMN_DESCRIPTION);
+            image = cursor.getColumnIndexOrThrow(COLUMN_IMAGE);
+            thumbnailRef = cursor.getColumnIndexOrThrow(COLUMN_THUMBNAIL_REF);
+            imageRef = cursor.getColumnIndexOrThrow(COLUMN_IMAGE_REF);
+            statusId = cursor.getColumnIndexOrThrow(COLUMN_STATUS_ID);
+            location = cursor.getColumnIndexOrThrow(COLUMN_LOCATION);
+            contactName = cursor.getColumnIndexOrThrow(COLUMN_CONTACT_NAME);
+            contactPhone = cursor.getColumnIndexOrThrow(COLUMN_CONTACT_PHONE);
+            contactEmail = cursor.getColumnIndexOrThrow(COLUMN_CONTACT_EMAIL);
+            createdAt = cursor.getColumnIndexOrThrow(COLUMN_CREATED_AT);
+            updatedAt = cursor.getColumnIndexOrThrow(COLUMN_UPDATED_AT);
+        }
+
+        Item read() {
+            Item item = new Item();
+            item.setFirebase_id(cursor.getString(firebaseId));
+            item.setUser_id(cursor.getString(userId));
+            item.setTitle(cursor.getString(title));
+            item.setDescription(cursor.getString(description));
+            item.setImage(cursor.getString(image));
+            item.setThumbnail_ref(cursor.getString(thumbnailRef));
+            item.setImage_ref(cursor.getString(imageRef));
+            item.setStatus_id(cursor.getInt(statusId));
+            item.setLocation(cursor.getString(location));
+            item.setContact_name(cursor.getString(contactName));
+            item.setContact_phone(cursor.getString(contactPhone));
+            item.setContact_email(cursor.getString(contactEmail));
+            item.setCreated_at(cursor.getLong(createdAt));
+            item.setUpdated_at(cursor.getLong(updatedAt));
+            return item;
+        }
+    }
+}
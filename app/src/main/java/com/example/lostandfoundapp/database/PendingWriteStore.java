@@ -0,0 +1,215 @@
+package com.example.lostandfoundapp.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.lostandfoundapp.database.ItemDatabaseHelper.*;
+
+/**
+ * Durable storage for writes that have not reached Firebase yet, one row
+ * per database path. Writing a path again replaces its row and bumps its
+ * version, so quick successive writes to the same field collapse into the
+ * last one, and a write that was in flight meanwhile can tell it has been
+ * superseded.
+ *
+ * Methods do disk I/O on the calling thread; WriteQueue calls them from
+ * its own executor.
+ */
+public class PendingWriteStore {
+    private static PendingWriteStore instance;
+
+    private final ItemDatabaseHelper mHelper;
+    // Highest version handed out, loaded from disk on first use
+    private long mLastVersion = -1;
+
+    /**
+     * One write waiting to be sent
+     */
+    public static class PendingWrite {
+        private final String path;
+        private final Object value;
+        private final long version;
+        private final int attempts;
+
+        PendingWrite(String path, Object value, long version, int attempts) {
+            this.path = path;
+            this.value = value;
+            this.version = version;
+            this.attempts = attempts;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+
+    private PendingWriteStore(ItemDatabaseHelper helper) {
+        mHelper = helper;
+    }
+
+    /**
+     * Called once from the Application
+     */
+    public static synchronized void initialize(Context context) {
+        if (instance == null) {
+            instance = new PendingWriteStore(ItemDatabaseHelper.getInstance(context));
+        }
+    }
+
+    /**
+     * A store in its own database file rather than the app's, e.g. for a
+     * test. Opening the same file again reads back what an earlier store
+     * left there, as a restarted process would.
+     */
+    public static PendingWriteStore open(Context context, String databaseName) {
+        return new PendingWriteStore(new ItemDatabaseHelper(context, databaseName));
+    }
+
+    public static synchronized PendingWriteStore getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("PendingWriteStore.initialize() was not called");
+        }
+        return instance;
+    }
+
+    /**
+     * Store writes to several paths atomically. A write replaces any pending
+     * write to the same path and any pending writes below it.
+     * @return The version given to each path
+     */
+    public synchronized Map<String, Long> put(Map<String, Object> writes) throws JSONException {
+        SQLiteDatabase db = mHelper.getWritableDatabase();
+        Map<String, Long> versions = new HashMap<>();
+        db.beginTransaction();
+        try {
+            for (Map.Entry<String, Object> write : writes.entrySet()) {
+                long version = nextVersion(db);
+                // Case-sensitive prefix match, LIKE would fold the case of push keys
+                String below = write.getKey() + "/";
+                db.delete(TABLE_PENDING_WRITES, "substr(" + COLUMN_PATH + ", 1, " + below.length() + ") = ?",
+                        new String[]{below});
+
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_PATH, write.getKey());
+                values.put(COLUMN_VALUE, encode(write.getValue()));
+                values.put(COLUMN_VERSION, version);
+                values.put(COLUMN_ATTEMPTS, 0);
+                db.insertWithOnConflict(TABLE_PENDING_WRITES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                versions.put(write.getKey(), version);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return versions;
+    }
+
+    /**
+     * Every pending write, ordered by path so ancestors come before their children
+     */
+    public synchronized List<PendingWrite> loadAll() throws JSONException {
+        List<PendingWrite> writes = new ArrayList<>();
+        Cursor cursor = mHelper.getReadableDatabase().query(TABLE_PENDING_WRITES,
+                new String[]{COLUMN_PATH, COLUMN_VALUE, COLUMN_VERSION, COLUMN_ATTEMPTS},
+                null, null, null, null, COLUMN_PATH);
+        try {
+            while (cursor.moveToNext()) {
+                writes.add(new PendingWrite(cursor.getString(0), decode(cursor.getString(1)),
+                        cursor.getLong(2), cursor.getInt(3)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return writes;
+    }
+
+    /**
+     * Forget a write once it has landed, unless the path was written again since
+     */
+    public synchronized void remove(String path, long version) {
+        mHelper.getWritableDatabase().delete(TABLE_PENDING_WRITES,
+                COLUMN_PATH + " = ? AND " + COLUMN_VERSION + " = ?",
+                new String[]{path, String.valueOf(version)});
+    }
+
+    /**
+     * Count a failed attempt at sending a write
+     */
+    public synchronized void recordAttempt(String path, long version) {
+        mHelper.getWritableDatabase().execSQL("UPDATE " + TABLE_PENDING_WRITES
+                        + " SET " + COLUMN_ATTEMPTS + " = " + COLUMN_ATTEMPTS + " + 1"
+                        + " WHERE " + COLUMN_PATH + " = ? AND " + COLUMN_VERSION + " = ?",
+                new Object[]{path, version});
+    }
+
+    private long nextVersion(SQLiteDatabase db) {
+        if (mLastVersion < 0) {
+            Cursor cursor = db.rawQuery("SELECT MAX(" + COLUMN_VERSION + ") FROM " + TABLE_PENDING_WRITES, null);
+            try {
+                mLastVersion = cursor.moveToFirst() ? cursor.getLong(0) : 0;
+            } finally {
+                cursor.close();
+            }
+        }
+        return ++mLastVersion;
+    }
+
+    // Values are kept as a one-element JSON array, so null and plain values round-trip too
+    private static String encode(Object value) {
+        return new JSONArray().put(JSONObject.wrap(value)).toString();
+    }
+
+    private static Object decode(String stored) throws JSONException {
+        return fromJson(new JSONArray(stored).get(0));
+    }
+
+    // Turn parsed JSON back into the plain maps, lists and values Firebase accepts
+    private static Object fromJson(Object json) throws JSONException {
+        if (json == JSONObject.NULL) {
+            return null;
+        }
+        if (json instanceof JSONObject) {
+            JSONObject object = (JSONObject) json;
+            Map<String, Object> map = new HashMap<>();
+            Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                map.put(key, fromJson(object.get(key)));
+            }
+            return map;
+        }
+        if (json instanceof JSONArray) {
+            JSONArray array = (JSONArray) json;
+            List<Object> list = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                list.add(fromJson(array.get(i)));
+            }
+            return list;
+        }
+        return json;
+    }
+}
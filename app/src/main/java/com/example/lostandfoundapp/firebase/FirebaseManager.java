@@ -1,19 +1,35 @@
 package com.example.lostandfoundapp.firebase;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.net.Uri;
-import android.util.Base64;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
-
+import androidx.annotation.Nullable;
+
+import com.example.lostandfoundapp.database.LocalItemStore;
+import com.example.lostandfoundapp.database.PendingWriteStore;
+import com.example.lostandfoundapp.images.FirebaseImageStore;
+import com.example.lostandfoundapp.images.ImageBudget;
+import com.example.lostandfoundapp.images.ImageCodec;
+import com.example.lostandfoundapp.images.ImageRefs;
+import com.example.lostandfoundapp.images.ImageStore;
+import com.example.lostandfoundapp.images.ImageUploadPipeline;
+import com.example.lostandfoundapp.images.ImageUploadPipeline.ProgressListener;
+import com.example.lostandfoundapp.images.ImageUploadPipeline.UploadHandle;
+import com.example.lostandfoundapp.metrics.Gauge;
+import com.example.lostandfoundapp.metrics.LatencyHistogram;
+import com.example.lostandfoundapp.metrics.Metrics;
 import com.example.lostandfoundapp.model.Item;
-import com.example.lostandfoundapp.model.ItemStatus;
 import com.example.lostandfoundapp.model.User;
+import com.example.lostandfoundapp.utils.AppLog;
 import com.example.lostandfoundapp.utils.Constants;
+import com.example.lostandfoundapp.utils.Timestamps;
 import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.TaskCompletionSource;
 import com.google.android.gms.tasks.Tasks;
@@ -24,20 +40,61 @@ import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 
-import java.io.ByteArrayOutputStream;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FirebaseManager {
     private static final String TAG = "FirebaseManager";
 
+    // Composite index fields that let the server filter items by status
+    public static final String FIELD_STATUS_KEY = "status_key";
+    public static final String FIELD_ACTIVE_KEY = "active_key";
+
+    // Server time in epoch milliseconds, indexed for time ordering and ranges
+    public static final String FIELD_CREATED_AT = "created_at";
+    public static final String FIELD_UPDATED_AT = "updated_at";
+
+    // Saved preferences recording which data migrations this device finished
+    private static final String MIGRATIONS_PREFS = "data_migrations";
+    private static final String MIGRATION_INLINE_IMAGES = "inline_images_";
+    private static final String MIGRATION_STATUS_INDEX = "status_index";
+    private static final String MIGRATION_TIMESTAMPS = "timestamps";
+
+    /**
+     * One data migration, which reports when a pass found it complete
+     */
+    private interface Migration {
+        void run(Runnable onComplete);
+    }
+
+    // Items read and written per round trip by the migrations over all items
+    private static final int MIGRATION_BATCH_SIZE = 200;
+
+    /**
+     * A migration over the items that runs in bounded batches
+     */
+    private interface BatchMigration {
+        // Items still to migrate after the last one read, or from the start
+        Query nextBatch(@Nullable DataSnapshot last);
+
+        // Add the writes for one item to the batch's updates
+        void migrate(DataSnapshot snapshot, Map<String, Object> updates);
+    }
+
+    // Round trips of item creates and deletes, and the listener count
+    private static final LatencyHistogram CREATE_TIME = Metrics.histogram("firebase.write.create");
+    private static final LatencyHistogram DELETE_TIME = Metrics.histogram("firebase.write.delete");
+    private static final Gauge ACTIVE_LISTENERS = Metrics.gauge("firebase.active_listeners");
+
     // Firebase instances
     private FirebaseAuth mAuth;
     private FirebaseDatabase mDatabase;
@@ -46,13 +103,30 @@ public class FirebaseManager {
     private DatabaseReference mUsersRef;
     private DatabaseReference mItemsRef;
     private DatabaseReference mStatusRef;
+    private DatabaseReference mStatusVersionRef;
 
     // Singleton instance
     private static FirebaseManager instance;
 
-    // Context
+    // Application context
     private Context mContext;
 
+    // Item pictures live outside the items node
+    private ImageStore mImageStore;
+    private final Executor mMigrationExecutor = Executors.newSingleThreadExecutor();
+    // Decodes and encodes picked images off the main thread, created with the context
+    private ImageUploadPipeline mUploadPipeline;
+
+    // On-device copy of the items node that list screens read from
+    private LocalItemStore mLocalStore;
+    // Durable outbound queue for edits and status changes
+    private WriteQueue mWriteQueue;
+
+    // Shared stream of the current user's items, see getUserItems()
+    private UserItemsLiveData mUserItems;
+    // Firebase listeners currently attached through this manager, for metrics
+    private final AtomicInteger mActiveListeners = new AtomicInteger();
+
     // Constructor
     private FirebaseManager() {
         // Initialize Firebase Auth
@@ -67,7 +141,7 @@ public class FirebaseManager {
             if (!databaseUrl.contains("lostandfoundapp-aba62")) {
                 // Try to reconnect with correct URL
                 mDatabase = FirebaseDatabase.getInstance("https://lostandfoundapp-aba62-default-rtdb.firebaseio.com");
-                Log.d(TAG, "Reconnected to database with explicit URL");
+                AppLog.d(TAG, "Reconnected to database with explicit URL");
             }
         } catch (Exception e) {
             Log.e(TAG, "Error checking database URL", e);
@@ -76,14 +150,31 @@ public class FirebaseManager {
         mUsersRef = mDatabase.getReference("users");
         mItemsRef = mDatabase.getReference("items");
         mStatusRef = mDatabase.getReference("item_status");
+        mStatusVersionRef = mDatabase.getReference("item_status_version");
+        mImageStore = new FirebaseImageStore(mDatabase);
+        mLocalStore = LocalItemStore.getInstance();
+        mWriteQueue = new WriteQueue(PendingWriteStore.getInstance(), mDatabase);
 
-        // Initialize status data if needed
-        initializeStatusData();
+        // Read the statuses again only if they changed, seeding them if needed
+        StatusRegistry.getInstance().sync(mStatusRef, mStatusVersionRef);
     }
 
-    // Set context
+    // Set context, only the application context is kept so no screen is leaked
     public void setContext(Context context) {
-        this.mContext = context;
+        if (mContext == null) {
+            mContext = context.getApplicationContext();
+            mUploadPipeline = new ImageUploadPipeline(mContext, mImageStore);
+        }
+    }
+
+    // Get the store that holds item pictures
+    public ImageStore getImageStore() {
+        return mImageStore;
+    }
+
+    // Get the local item store, kept in sync with what we receive
+    public LocalItemStore getLocalStore() {
+        return mLocalStore;
     }
 
     // Get singleton instance
@@ -94,51 +185,6 @@ public class FirebaseManager {
         return instance;
     }
 
-    // Initialize status data
-    private void initializeStatusData() {
-        mStatusRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                if (!dataSnapshot.exists()) {
-                    // Create status data if it doesn't exist
-                    Map<String, Object> statusMap = new HashMap<>();
-
-                    // Lost status
-                    Map<String, Object> lostStatus = new HashMap<>();
-                    lostStatus.put("id", Constants.STATUS_LOST);
-                    lostStatus.put("name", "Lost");
-                    lostStatus.put("color", "#dc3545");
-                    lostStatus.put("created_at", new Date().toString());
-                    statusMap.put(String.valueOf(Constants.STATUS_LOST), lostStatus);
-
-                    // Found status
-                    Map<String, Object> foundStatus = new HashMap<>();
-                    foundStatus.put("id", Constants.STATUS_FOUND);
-                    foundStatus.put("name", "Found");
-                    foundStatus.put("color", "#28a745");
-                    foundStatus.put("created_at", new Date().toString());
-                    statusMap.put(String.valueOf(Constants.STATUS_FOUND), foundStatus);
-
-                    // Claimed status
-                    Map<String, Object> claimedStatus = new HashMap<>();
-                    claimedStatus.put("id", Constants.STATUS_CLAIMED);
-                    claimedStatus.put("name", "Claimed");
-                    claimedStatus.put("color", "#17a2b8");
-                    claimedStatus.put("created_at", new Date().toString());
-                    statusMap.put(String.valueOf(Constants.STATUS_CLAIMED), claimedStatus);
-
-                    // Save status data
-                    mStatusRef.setValue(statusMap);
-                }
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.w(TAG, "initializeStatusData:onCancelled", databaseError.toException());
-            }
-        });
-    }
-
     // Check if user is logged in
     public boolean isUserLoggedIn() {
         return mAuth.getCurrentUser() != null;
@@ -254,56 +300,90 @@ public class FirebaseManager {
     // Logout user
     public void logoutUser() {
         mAuth.signOut();
+        mLocalStore.clear();
+        // Observers may outlive the session, the listener must not
+        if (mUserItems != null) {
+            mUserItems.close();
+            mUserItems = null;
+        }
     }
 
-    // Get all items
-    public void getAllItems(final ValueEventListener listener) {
-        Log.d(TAG, "Getting all items from Firebase");
-
-        // Add a valueEventListener that we keep a reference to
-        ValueEventListener wrappedListener = new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                Log.d(TAG, "All items data changed, item count: " + dataSnapshot.getChildrenCount());
+    /**
+     * Create a paged, incrementally synced repository over the items with one
+     * status, newest first. Only matching items are transferred.
+     * @param statusId Status to show, or Constants.STATUS_ACTIVE for everything not claimed
+     * @param pageSize Number of items per page
+     * @param listener Receives page loads and single-item deltas
+     */
+    public ItemRepository createItemRepository(int statusId, int pageSize, ItemRepository.Listener listener) {
+        return new ItemRepository(this, mItemsRef, mLocalStore, statusId, pageSize, listener);
+    }
 
-                // Forward the event to the original listener
-                if (listener != null) {
-                    listener.onDataChange(dataSnapshot);
-                }
-            }
+    /**
+     * Create a paged, incrementally synced repository over the items created
+     * since a time, latest server creation time first. The range is read from
+     * the created_at index, so only items that recent are transferred; claimed
+     * ones among them are left for the caller to hide.
+     * @param createdSince Epoch milliseconds of the oldest items to show
+     * @param pageSize Number of items per page
+     * @param listener Receives page loads and single-item deltas
+     */
+    public ItemRepository createRecentItemRepository(long createdSince, int pageSize,
+                                                     ItemRepository.Listener listener) {
+        return new ItemRepository(this, mItemsRef, mLocalStore, createdSince, pageSize, listener);
+    }
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.e(TAG, "getAllItems:onCancelled", databaseError.toException());
+    // Index value for the per-status feeds: "{status_id}_{key}"
+    public static String statusKey(int statusId, String itemId) {
+        return statusId + "_" + itemId;
+    }
 
-                // Forward the event to the original listener
-                if (listener != null) {
-                    listener.onCancelled(databaseError);
-                }
-            }
-        };
+    // Index value for the active feed: the key, or null so claimed items drop out
+    public static String activeKey(int statusId, String itemId) {
+        return statusId == Constants.STATUS_CLAIMED ? null : itemId;
+    }
 
-        // Add the listener to the database reference
-        mItemsRef.addValueEventListener(wrappedListener);
+    // Bring an item's index fields in line with its status before it is written
+    private static void indexItem(String itemId, Item item) {
+        item.setStatus_key(statusKey(item.getStatus_id(), itemId));
+        item.setActive_key(activeKey(item.getStatus_id(), itemId));
     }
 
     /**
-     * Remove a value event listener from the items reference
-     * @param listener The listener to remove
+     * Get the current user's items as one stream shared by every screen that
+     * shows them. The listener is attached only while someone observes it.
+     * @return null if no user is logged in
      */
-    public void removeItemsListener(ValueEventListener listener) {
-        if (listener != null) {
-            Log.d(TAG, "Removing items listener");
-            mItemsRef.removeEventListener(listener);
+    public UserItemsLiveData getUserItems() {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            return null;
+        }
+        if (mUserItems == null || !userId.equals(mUserItems.getUserId())) {
+            if (mUserItems != null) {
+                mUserItems.close();
+            }
+            mUserItems = new UserItemsLiveData(this,
+                    userId, mItemsRef.orderByChild("user_id").equalTo(userId), mLocalStore);
         }
+        return mUserItems;
     }
 
-    // Get user items
-    public void getUserItems(final ValueEventListener listener) {
-        String userId = getCurrentUserId();
-        if (userId != null) {
-            mItemsRef.orderByChild("user_id").equalTo(userId).addValueEventListener(listener);
-        }
+    // Number of live listeners attached through the manager
+    public int getActiveListenerCount() {
+        return mActiveListeners.get();
+    }
+
+    void onListenerAttached() {
+        int count = mActiveListeners.incrementAndGet();
+        ACTIVE_LISTENERS.set(count);
+        AppLog.d(TAG, "Listener attached, active listeners: {}", count);
+    }
+
+    void onListenerDetached() {
+        int count = mActiveListeners.decrementAndGet();
+        ACTIVE_LISTENERS.set(count);
+        AppLog.d(TAG, "Listener detached, active listeners: {}", count);
     }
 
     // Get item details
@@ -311,8 +391,9 @@ public class FirebaseManager {
         mItemsRef.child(itemId).addListenerForSingleValueEvent(listener);
     }
 
-    // Helper method to calculate optimal sample size for loading large images
-    private int calculateInSampleSize(BitmapFactory.Options options, int reqWidth, int reqHeight) {
+    // Helper method to calculate optimal sample size for loading large images,
+    // shared by the upload path and the image pipeline's read side
+    public static int calculateInSampleSize(BitmapFactory.Options options, int reqWidth, int reqHeight) {
         // Raw height and width of image
         final int height = options.outHeight;
         final int width = options.outWidth;
@@ -333,85 +414,50 @@ public class FirebaseManager {
         return inSampleSize;
     }
 
-    // Convert Uri to Base64 string - improved version
-    private String uriToBase64(Uri uri) {
-        if (uri == null || mContext == null) {
-            Log.e(TAG, "Uri or Context is null");
-            return null;
-        }
-
-        try {
-            InputStream inputStream = mContext.getContentResolver().openInputStream(uri);
-            if (inputStream == null) {
-                Log.e(TAG, "Failed to open input stream for URI: " + uri);
-                return null;
-            }
-
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            BitmapFactory.decodeStream(inputStream, null, options);
-
-            // Reset stream
-            inputStream.close();
-            inputStream = mContext.getContentResolver().openInputStream(uri);
-
-            // Calculate inSampleSize
-            options.inJustDecodeBounds = false;
-            options.inSampleSize = calculateInSampleSize(options, 800, 800);
-
-            Bitmap bitmap = BitmapFactory.decodeStream(inputStream, null, options);
-
-            if (bitmap == null) {
-                Log.e(TAG, "Failed to decode bitmap from URI: " + uri);
-                return null;
-            }
+    // Store the picture through the upload pipeline and put the returned references on the item
+    private UploadHandle storeItemImages(final String itemId, final Item item, Uri imageUri,
+                                         @Nullable ProgressListener progress,
+                                         final OnCompleteListener<Item> onStored) {
+        return mUploadPipeline.upload(itemId, imageUri, progress, new OnCompleteListener<ImageRefs>() {
+            @Override
+            public void onComplete(@NonNull Task<ImageRefs> task) {
+                if (task.isCanceled()) {
+                    AppLog.d(TAG, "Image upload cancelled for item: {}", itemId);
+                    onStored.onComplete(Tasks.<Item>forCanceled());
+                    return;
+                }
 
-            // Compress and resize image to reduce storage size
-            int maxDimension = 800; // Maximum width or height
-            int width = bitmap.getWidth();
-            int height = bitmap.getHeight();
-
-            // Only resize if needed
-            Bitmap resizedBitmap = bitmap;
-            if (width > maxDimension || height > maxDimension) {
-                float scale = Math.min(
-                        (float) maxDimension / width,
-                        (float) maxDimension / height);
-
-                int newWidth = Math.round(width * scale);
-                int newHeight = Math.round(height * scale);
-
-                resizedBitmap = Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, true);
-                // Recycle original bitmap if we created a new one
-                if (resizedBitmap != bitmap) {
-                    bitmap.recycle();
+                TaskCompletionSource<Item> tcs = new TaskCompletionSource<>();
+                if (task.isSuccessful() && task.getResult() != null) {
+                    item.setThumbnail_ref(task.getResult().getThumbnailRef());
+                    item.setImage_ref(task.getResult().getDetailRef());
+                    // Drop any legacy inline image now that the refs replace it
+                    item.setImage(null);
+                    tcs.setResult(item);
+                } else {
+                    tcs.setException(task.getException() != null ?
+                            task.getException() : new Exception("Failed to store image"));
                 }
+                onStored.onComplete(tcs.getTask());
             }
-
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            resizedBitmap.compress(Bitmap.CompressFormat.JPEG, 70, outputStream);
-            byte[] bytes = outputStream.toByteArray();
-
-            // Use NO_WRAP to avoid line breaks in the Base64 string
-            String base64String = Base64.encodeToString(bytes, Base64.NO_WRAP);
-
-            Log.d(TAG, "Successfully encoded image, size: " + bytes.length + " bytes");
-            return "data:image/jpeg;base64," + base64String;
-        } catch (Exception e) {
-            Log.e(TAG, "Error converting Uri to Base64", e);
-            return null;
-        }
+        });
     }
 
-    // Create new item with Base64 image - improved version
-    public void createItem(final Item item, Uri imageUri, final OnCompleteListener<Item> listener) {
-        if (mContext == null) {
+    /**
+     * Create new item, storing its image separately from the item data.
+     * Image processing runs in the background, so this returns at once.
+     * @return Handle to cancel the image upload, null if there is no image to upload
+     */
+    @Nullable
+    public UploadHandle createItem(final Item item, Uri imageUri, @Nullable ProgressListener progress,
+                                   final OnCompleteListener<Item> listener) {
+        if (imageUri != null && mUploadPipeline == null) {
             if (listener != null) {
                 TaskCompletionSource<Item> tcs = new TaskCompletionSource<>();
                 tcs.setException(new Exception("Context not set"));
                 listener.onComplete(tcs.getTask());
             }
-            return;
+            return null;
         }
 
         final String itemId = mItemsRef.push().getKey();
@@ -421,35 +467,23 @@ public class FirebaseManager {
             // Set item data
             item.setId(0); // Firebase uses custom keys
             item.setUser_id(userId);
-            item.setCreated_at(new Date().toString());
-            item.setUpdated_at(new Date().toString());
+            // Local estimate until the server's own time comes back
+            item.setCreated_at(System.currentTimeMillis());
+            item.setUpdated_at(item.getCreated_at());
 
-            // Convert image to Base64 if available
+            // Store image first so the item is never visible without its refs
             if (imageUri != null) {
-                try {
-                    String base64Image = uriToBase64(imageUri);
-                    if (base64Image != null) {
-                        item.setImage(base64Image);
-                        // Save item to database
-                        saveItemToDatabase(itemId, item, listener);
-                    } else {
-                        // Handle image conversion failure
-                        Log.e(TAG, "Failed to convert image to Base64");
-                        if (listener != null) {
-                            TaskCompletionSource<Item> tcs = new TaskCompletionSource<>();
-                            tcs.setException(new Exception("Failed to process image"));
-                            listener.onComplete(tcs.getTask());
+                return storeItemImages(itemId, item, imageUri, progress, new OnCompleteListener<Item>() {
+                    @Override
+                    public void onComplete(@NonNull Task<Item> task) {
+                        if (task.isSuccessful()) {
+                            // Save item to database
+                            saveItemToDatabase(itemId, item, listener);
+                        } else if (listener != null) {
+                            listener.onComplete(task);
                         }
                     }
-                } catch (Exception e) {
-                    // Handle exception
-                    Log.e(TAG, "Exception while processing image", e);
-                    if (listener != null) {
-                        TaskCompletionSource<Item> tcs = new TaskCompletionSource<>();
-                        tcs.setException(e);
-                        listener.onComplete(tcs.getTask());
-                    }
-                }
+                });
             } else {
                 // Save item without image
                 saveItemToDatabase(itemId, item, listener);
@@ -461,14 +495,22 @@ public class FirebaseManager {
                 listener.onComplete(tcs.getTask());
             }
         }
+        return null;
     }
 
     // Save item to database
     private void saveItemToDatabase(String itemId, Item item, final OnCompleteListener<Item> listener) {
-        mItemsRef.child(itemId).setValue(item)
+        indexItem(itemId, item);
+        // Timestamps are filled in by the server, so item order never depends on device clocks
+        Map<String, Object> fields = item.toMap();
+        fields.put(FIELD_CREATED_AT, ServerValue.TIMESTAMP);
+        fields.put(FIELD_UPDATED_AT, ServerValue.TIMESTAMP);
+        final long sentAt = System.nanoTime();
+        mItemsRef.child(itemId).setValue(fields)
                 .addOnCompleteListener(new OnCompleteListener<Void>() {
                     @Override
                     public void onComplete(@NonNull Task<Void> task) {
+                        CREATE_TIME.recordSince(sentAt);
                         if (task.isSuccessful()) {
                             if (listener != null) {
                                 item.setFirebase_id(itemId); // Set Firebase ID for reference
@@ -488,16 +530,58 @@ public class FirebaseManager {
                 });
     }
 
-    // Update item status
-    public void updateItemStatus(String itemId, int statusId, final OnCompleteListener<Void> listener) {
-        mItemsRef.child(itemId).child("status_id").setValue(statusId)
-                .addOnCompleteListener(listener);
+    /**
+     * Update item status through the write queue. Quick successive changes to
+     * one item coalesce, so only the last status is sent.
+     * @return The queued write, to follow until the server has it
+     */
+    public WriteQueue.Operation updateItemStatus(String itemId, int statusId) {
+        // The status and its index fields change together
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("status_id", statusId);
+        updates.put(FIELD_STATUS_KEY, statusKey(statusId, itemId));
+        updates.put(FIELD_ACTIVE_KEY, activeKey(statusId, itemId));
+        return mWriteQueue.enqueue(itemPaths(itemId, updates));
+    }
+
+    // Prefix item fields with the item's path, for queued multi-path writes
+    private static Map<String, Object> itemPaths(String itemId, Map<String, Object> fields) {
+        Map<String, Object> paths = new HashMap<>();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            paths.put("items/" + itemId + "/" + field.getKey(), field.getValue());
+        }
+        return paths;
     }
 
-    // Delete item
-    public void deleteItem(String itemId, final OnCompleteListener<Void> listener) {
-        // With Base64 encoding, we just delete the item from the database
-        mItemsRef.child(itemId).removeValue().addOnCompleteListener(listener);
+    /**
+     * Delete an item and its stored images through the write queue. Queuing
+     * the delete replaces any edit or status change still waiting for the
+     * item, so none of them can recreate it after it is gone.
+     * @param listener Called once the server has removed the item
+     */
+    public void deleteItem(final String itemId, final OnCompleteListener<Void> listener) {
+        // Remove the item and its stored images in one atomic multi-path update
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("items/" + itemId, null);
+        updates.put(mImageStore.getImagesPath(itemId), null);
+        final long sentAt = System.nanoTime();
+        WriteQueue.Operation operation = mWriteQueue.enqueue(updates);
+        operation.getQueued().addOnSuccessListener(new OnSuccessListener<Void>() {
+            @Override
+            public void onSuccess(Void unused) {
+                // Lists drop it now, the queue sends the delete even if the app closes
+                mLocalStore.deleteItem(itemId);
+            }
+        });
+        operation.getCommitted().addOnCompleteListener(new OnCompleteListener<Void>() {
+            @Override
+            public void onComplete(@NonNull Task<Void> task) {
+                DELETE_TIME.recordSince(sentAt);
+                if (listener != null) {
+                    listener.onComplete(task);
+                }
+            }
+        });
     }
 
     // Get user data
@@ -535,41 +619,21 @@ public class FirebaseManager {
         }
     }
 
-    // Get status data
-    public void getStatusData(final OnCompleteListener<List<ItemStatus>> listener) {
-        mStatusRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                List<ItemStatus> statusList = new ArrayList<>();
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    ItemStatus status = snapshot.getValue(ItemStatus.class);
-                    if (status != null) {
-                        statusList.add(status);
-                    }
-                }
-
-                if (listener != null) {
-                    TaskCompletionSource<List<ItemStatus>> tcs = new TaskCompletionSource<>();
-                    tcs.setResult(statusList);
-                    listener.onComplete(tcs.getTask());
-                }
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                if (listener != null) {
-                    TaskCompletionSource<List<ItemStatus>> tcs = new TaskCompletionSource<>();
-                    tcs.setException(databaseError.toException());
-                    listener.onComplete(tcs.getTask());
-                }
-            }
-        });
-    }
-
     /**
-     * Update item without changing the image
+     * Update item without changing the image. Only fields that differ from
+     * loadedFields are written, together with updated_at. The write goes
+     * through the write queue: the listener is called once it is saved on the
+     * device, and it is sent from there even if the app is closed.
+     * @param loadedFields The item's toMap() as it was loaded, null to write every field
      */
-    public void updateItem(Item item, final OnCompleteListener<Item> listener) {
+    public void updateItem(final Item item, @Nullable Map<String, Object> loadedFields,
+                           final OnCompleteListener<Item> listener) {
+        updateItem(item, loadedFields, new HashMap<String, Object>(), listener);
+    }
+
+    // As updateItem, with more root-relative paths written in the same queued operation
+    private void updateItem(final Item item, @Nullable Map<String, Object> loadedFields,
+                            Map<String, Object> alsoWrite, final OnCompleteListener<Item> listener) {
         if (item == null || item.getFirebase_id() == null) {
             if (listener != null) {
                 TaskCompletionSource<Item> tcs = new TaskCompletionSource<>();
@@ -579,11 +643,20 @@ public class FirebaseManager {
             return;
         }
 
-        // Set updated_at timestamp
-        item.setUpdated_at(new Date().toString());
+        // Local estimate, the write itself carries the server's time
+        item.setUpdated_at(System.currentTimeMillis());
+        indexItem(item.getFirebase_id(), item);
+
+        // Send only what changed, so a text edit never carries the image or untouched fields
+        Map<String, Object> updates = loadedFields != null
+                ? changedFields(loadedFields, item.toMap()) : item.toMap();
+        updates.remove(FIELD_CREATED_AT);
+        updates.put(FIELD_UPDATED_AT, ServerValue.TIMESTAMP);
+        AppLog.d(TAG, "Updating fields {} of item: {}", updates.keySet(), item.getFirebase_id());
 
-        // Update item in Firebase
-        mItemsRef.child(item.getFirebase_id()).setValue(item)
+        Map<String, Object> paths = itemPaths(item.getFirebase_id(), updates);
+        paths.putAll(alsoWrite);
+        mWriteQueue.enqueue(paths).getQueued()
                 .addOnCompleteListener(new OnCompleteListener<Void>() {
                     @Override
                     public void onComplete(@NonNull Task<Void> task) {
@@ -605,17 +678,40 @@ public class FirebaseManager {
                 });
     }
 
+    // Fields of after that differ from before, with removed fields mapped to null
+    static Map<String, Object> changedFields(Map<String, Object> before, Map<String, Object> after) {
+        Map<String, Object> changes = new HashMap<>();
+        for (Map.Entry<String, Object> field : after.entrySet()) {
+            if (!Objects.equals(before.get(field.getKey()), field.getValue())) {
+                changes.put(field.getKey(), field.getValue());
+            }
+        }
+        // Writing null removes the field on the server
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key) && before.get(key) != null) {
+                changes.put(key, null);
+            }
+        }
+        return changes;
+    }
+
     /**
-     * Update item with a new image
+     * Update item with a new image. Image processing runs in the background,
+     * then only the changed fields are written as in updateItem.
+     * @param loadedFields The item's toMap() as it was loaded, null to write every field
+     * @return Handle to cancel the image upload, null if there is no image to upload
      */
-    public void updateItemWithImage(final Item item, Uri imageUri, final OnCompleteListener<Item> listener) {
-        if (mContext == null) {
+    @Nullable
+    public UploadHandle updateItemWithImage(final Item item, @Nullable final Map<String, Object> loadedFields,
+                                            Uri imageUri, @Nullable ProgressListener progress,
+                                            final OnCompleteListener<Item> listener) {
+        if (imageUri != null && mUploadPipeline == null) {
             if (listener != null) {
                 TaskCompletionSource<Item> tcs = new TaskCompletionSource<>();
                 tcs.setException(new Exception("Context not set"));
                 listener.onComplete(tcs.getTask());
             }
-            return;
+            return null;
         }
 
         if (item == null || item.getFirebase_id() == null) {
@@ -624,60 +720,287 @@ public class FirebaseManager {
                 tcs.setException(new Exception("Invalid item"));
                 listener.onComplete(tcs.getTask());
             }
-            return;
+            return null;
         }
 
-        // Convert image to Base64 if available
+        // Store the new image, then save the item with the new refs
         if (imageUri != null) {
-            try {
-                String base64Image = uriToBase64(imageUri);
-                if (base64Image != null) {
-                    // Set the new image
-                    item.setImage(base64Image);
-
-                    // Set updated_at timestamp
-                    item.setUpdated_at(new Date().toString());
-
-                    // Update item in Firebase
-                    mItemsRef.child(item.getFirebase_id()).setValue(item)
-                            .addOnCompleteListener(new OnCompleteListener<Void>() {
-                                @Override
-                                public void onComplete(@NonNull Task<Void> task) {
-                                    if (task.isSuccessful()) {
-                                        if (listener != null) {
-                                            TaskCompletionSource<Item> tcs = new TaskCompletionSource<>();
-                                            tcs.setResult(item);
-                                            listener.onComplete(tcs.getTask());
-                                        }
-                                    } else {
-                                        if (listener != null) {
-                                            TaskCompletionSource<Item> tcs = new TaskCompletionSource<>();
-                                            tcs.setException(task.getException() != null ?
-                                                    task.getException() : new Exception("Failed to update item"));
-                                            listener.onComplete(tcs.getTask());
-                                        }
-                                    }
-                                }
-                            });
-                } else {
-                    // Handle image conversion failure
-                    if (listener != null) {
-                        TaskCompletionSource<Item> tcs = new TaskCompletionSource<>();
-                        tcs.setException(new Exception("Failed to process image"));
-                        listener.onComplete(tcs.getTask());
+            final ImageRefs previousImages = item.getThumbnail_ref() != null ?
+                    new ImageRefs(item.getThumbnail_ref(), item.getImage_ref()) : null;
+            return storeItemImages(item.getFirebase_id(), item, imageUri, progress, new OnCompleteListener<Item>() {
+                @Override
+                public void onComplete(@NonNull Task<Item> task) {
+                    if (task.isSuccessful()) {
+                        // The new version is stored apart from the old one; the refs
+                        // switch over and the old version goes in the same write
+                        Map<String, Object> dropPrevious = new HashMap<>();
+                        if (previousImages != null) {
+                            for (String path : mImageStore.getPaths(previousImages)) {
+                                dropPrevious.put(path, null);
+                            }
+                        }
+                        updateItem(item, loadedFields, dropPrevious, listener);
+                    } else if (listener != null) {
+                        listener.onComplete(task);
                     }
                 }
-            } catch (Exception e) {
-                // Handle exception
-                if (listener != null) {
-                    TaskCompletionSource<Item> tcs = new TaskCompletionSource<>();
-                    tcs.setException(e);
-                    listener.onComplete(tcs.getTask());
-                }
-            }
+            });
         } else {
             // If no image was provided, just update the item
-            updateItem(item, listener);
+            updateItem(item, loadedFields, listener);
+        }
+        return null;
+    }
+
+    /**
+     * Run the data migrations this device has not finished yet. Each one is
+     * recorded in saved preferences once a pass over the data confirmed it
+     * complete, so later starts skip it and never read or rewrite the items
+     * again; one that was cut short runs again on the next start.
+     */
+    public void runPendingMigrations() {
+        if (mContext == null) {
+            Log.e(TAG, "Context not set, skipping data migrations");
+            return;
+        }
+        SharedPreferences prefs = mContext.getSharedPreferences(MIGRATIONS_PREFS, Context.MODE_PRIVATE);
+
+        String userId = getCurrentUserId();
+        if (userId != null) {
+            // Move any inline images left on this user's items into the image store
+            runOnce(prefs, MIGRATION_INLINE_IMAGES + userId, new Migration() {
+                @Override
+                public void run(Runnable onComplete) {
+                    migrateInlineImages(onComplete);
+                }
+            });
+        }
+        // Give items written before the status index existed their index fields
+        runOnce(prefs, MIGRATION_STATUS_INDEX, new Migration() {
+            @Override
+            public void run(Runnable onComplete) {
+                backfillStatusIndex(onComplete);
+            }
+        });
+        // Rewrite text timestamps from older versions as epoch milliseconds
+        runOnce(prefs, MIGRATION_TIMESTAMPS, new Migration() {
+            @Override
+            public void run(Runnable onComplete) {
+                migrateTimestamps(onComplete);
+            }
+        });
+    }
+
+    private static void runOnce(final SharedPreferences prefs, final String key, Migration migration) {
+        if (prefs.getBoolean(key, false)) {
+            return;
         }
+        migration.run(new Runnable() {
+            @Override
+            public void run() {
+                prefs.edit().putBoolean(key, true).apply();
+                AppLog.d(TAG, "Migration {} complete", key);
+            }
+        });
+    }
+
+    /**
+     * Move the current user's legacy inline Base64 images into the image store.
+     * Runs once per item: after the move the item only holds refs and no image.
+     * @param onComplete Called once a pass finds no inline images left
+     */
+    private void migrateInlineImages(final Runnable onComplete) {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            return;
+        }
+
+        mItemsRef.orderByChild("user_id").equalTo(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                int migrating = 0;
+                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+                    final String itemId = snapshot.getKey();
+                    final String inlineImage = snapshot.child("image").getValue(String.class);
+                    if (itemId == null || !ImageCodec.isDataUri(inlineImage)
+                            || snapshot.hasChild("thumbnail_ref")) {
+                        continue;
+                    }
+
+                    // Decoding and re-encoding is slow, keep it off the main thread
+                    migrating++;
+                    mMigrationExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            migrateInlineImage(itemId, inlineImage);
+                        }
+                    });
+                }
+                // Done once nothing is left, the next start confirms the moves started here
+                if (migrating == 0) {
+                    onComplete.run();
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.w(TAG, "migrateInlineImages:onCancelled", databaseError.toException());
+            }
+        });
+    }
+
+    /**
+     * Add the status index fields to items written before they existed, so the
+     * filtered feeds can see them. Only items still missing the field are read,
+     * a batch at a time.
+     * @param onComplete Called once every item has its index fields
+     */
+    private void backfillStatusIndex(final Runnable onComplete) {
+        runBatches("backfillStatusIndex", new BatchMigration() {
+            @Override
+            public Query nextBatch(@Nullable DataSnapshot last) {
+                Query missing = mItemsRef.orderByChild(FIELD_STATUS_KEY);
+                if (last != null) {
+                    // Items without a status stay in range, so carry on past the last key
+                    missing = missing.startAfter((String) null, last.getKey());
+                }
+                return missing.endAt((String) null);
+            }
+
+            @Override
+            public void migrate(DataSnapshot snapshot, Map<String, Object> updates) {
+                Integer statusId = snapshot.child("status_id").getValue(Integer.class);
+                String itemId = snapshot.getKey();
+                if (itemId == null || statusId == null || snapshot.hasChild(FIELD_STATUS_KEY)) {
+                    return;
+                }
+                updates.put(itemId + "/" + FIELD_STATUS_KEY, statusKey(statusId, itemId));
+                updates.put(itemId + "/" + FIELD_ACTIVE_KEY, activeKey(statusId, itemId));
+            }
+        }, null, onComplete);
+    }
+
+    /**
+     * Rewrite timestamps still stored as Date.toString() text as epoch
+     * milliseconds. Text sorts after every number in the created_at index,
+     * so only items still to migrate are read, a batch at a time.
+     * @param onComplete Called once no text timestamps are left
+     */
+    private void migrateTimestamps(final Runnable onComplete) {
+        runBatches("migrateTimestamps", new BatchMigration() {
+            @Override
+            public Query nextBatch(@Nullable DataSnapshot last) {
+                Query legacy = mItemsRef.orderByChild(FIELD_CREATED_AT);
+                Object lastValue = last != null ? last.child(FIELD_CREATED_AT).getValue() : null;
+                if (lastValue instanceof String) {
+                    return legacy.startAfter((String) lastValue, last.getKey());
+                }
+                // Every item read is rewritten as a number, so the rest of the range is still to do
+                return legacy.startAt("");
+            }
+
+            @Override
+            public void migrate(DataSnapshot snapshot, Map<String, Object> updates) {
+                String itemId = snapshot.getKey();
+                if (itemId == null) {
+                    return;
+                }
+                // Unreadable text falls back to the time in the push key
+                long createdAt = Timestamps.fromValue(snapshot.child(FIELD_CREATED_AT).getValue());
+                if (createdAt == 0) {
+                    createdAt = Timestamps.fromPushKey(itemId);
+                }
+                long updatedAt = Timestamps.fromValue(snapshot.child(FIELD_UPDATED_AT).getValue());
+                if (updatedAt < createdAt) {
+                    updatedAt = createdAt;
+                }
+                updates.put(itemId + "/" + FIELD_CREATED_AT, createdAt);
+                updates.put(itemId + "/" + FIELD_UPDATED_AT, updatedAt);
+            }
+        }, null, onComplete);
+    }
+
+    /**
+     * Read one batch of a migration after the given item, write its updates
+     * as one multi-path write, then go on with the next. A short batch is the
+     * last; onComplete runs only once its write succeeded. A failed read or
+     * write stops the pass, and the next start runs it again.
+     */
+    private void runBatches(final String name, final BatchMigration migration,
+                            @Nullable DataSnapshot last, final Runnable onComplete) {
+        migration.nextBatch(last).limitToFirst(MIGRATION_BATCH_SIZE)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                        Map<String, Object> updates = new HashMap<>();
+                        DataSnapshot lastRead = null;
+                        for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+                            migration.migrate(snapshot, updates);
+                            lastRead = snapshot;
+                        }
+                        final boolean finished = dataSnapshot.getChildrenCount() < MIGRATION_BATCH_SIZE;
+                        final DataSnapshot cursor = lastRead;
+
+                        if (updates.isEmpty()) {
+                            if (finished) {
+                                onComplete.run();
+                            } else {
+                                runBatches(name, migration, cursor, onComplete);
+                            }
+                            return;
+                        }
+                        mItemsRef.updateChildren(updates).addOnCompleteListener(new OnCompleteListener<Void>() {
+                            @Override
+                            public void onComplete(@NonNull Task<Void> task) {
+                                if (!task.isSuccessful()) {
+                                    Log.w(TAG, name + ": batch write failed", task.getException());
+                                } else if (finished) {
+                                    onComplete.run();
+                                } else {
+                                    runBatches(name, migration, cursor, onComplete);
+                                }
+                            }
+                        });
+                        AppLog.d(TAG, "{}: updating {} fields", name, updates.size());
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError databaseError) {
+                        Log.w(TAG, name + ":onCancelled", databaseError.toException());
+                    }
+                });
+    }
+
+    private void migrateInlineImage(final String itemId, String inlineImage) {
+        final Bitmap bitmap;
+        try {
+            bitmap = ImageCodec.decode(inlineImage);
+        } catch (Exception e) {
+            Log.e(TAG, "Error decoding inline image for item: " + itemId, e);
+            return;
+        }
+        if (bitmap == null) {
+            Log.e(TAG, "Inline image could not be decoded for item: " + itemId);
+            return;
+        }
+
+        mImageStore.putImages(itemId, bitmap, ImageBudget.forCurrentNetwork(mContext), new OnCompleteListener<ImageRefs>() {
+            @Override
+            public void onComplete(@NonNull Task<ImageRefs> task) {
+                bitmap.recycle();
+                if (!task.isSuccessful() || task.getResult() == null) {
+                    Log.e(TAG, "Failed to migrate image for item: " + itemId, task.getException());
+                    return;
+                }
+
+                // Swap the inline image for refs in a single update
+                Map<String, Object> updates = new HashMap<>();
+                updates.put("image", null);
+                updates.put("thumbnail_ref", task.getResult().getThumbnailRef());
+                updates.put("image_ref", task.getResult().getDetailRef());
+                mItemsRef.child(itemId).updateChildren(updates);
+                AppLog.d(TAG, "Migrated inline image for item: {}", itemId);
+            }
+        });
     }
-}
\ No newline at end of file
+}
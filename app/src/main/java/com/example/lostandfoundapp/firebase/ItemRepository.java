@@ -0,0 +1,503 @@
+package com.example.lostandfoundapp.firebase;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.lostandfoundapp.database.LocalItemStore;
+import com.example.lostandfoundapp.metrics.Counter;
+import com.example.lostandfoundapp.metrics.LatencyHistogram;
+import com.example.lostandfoundapp.metrics.Metrics;
+import com.example.lostandfoundapp.metrics.Sections;
+import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.model.ItemMapper;
+import com.example.lostandfoundapp.model.ItemOrder;
+import com.example.lostandfoundapp.utils.AppLog;
+import com.example.lostandfoundapp.utils.Constants;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Paged, newest-first, incrementally synced view of the items with one status,
+ * of all active (not claimed) items, or of the items created since a time.
+ *
+ * The status filter runs on the server through composite index fields that
+ * end in the push key (see FirebaseManager.indexItem): "status_key" is
+ * "{status_id}_{key}" and "active_key" is the key itself, absent once an
+ * item is claimed. Push keys are chronological, so pages are ranges of the
+ * index value. The recent feed pages over the created_at index instead,
+ * newest server time first, so "the last 7 days" is one range on the
+ * server; it holds every status, and screens hide claimed items
+ * themselves. Each page is read once to find its bounds, then a
+ * ChildEventListener is anchored on exactly that range (the newest page is
+ * open-ended so new posts arrive there). The listener's initial replay
+ * repeats what the bounds read delivered, so replayed children whose value
+ * is unchanged are dropped before they are parsed. Pages end on a value and
+ * a key, so items created in the same millisecond never fall between two
+ * pages.
+ * Remote changes arrive as single-child deltas that are applied to an
+ * id-keyed index and forwarded to the listener, so a change costs one item
+ * of parsing and binding instead of a full re-snapshot.
+ *
+ * Every page and delta is also written through to the LocalItemStore. A page
+ * of a status feed replaces its whole key range there, so items deleted
+ * while the app was away disappear from disk too; the recent feed only adds
+ * and updates rows.
+ */
+public class ItemRepository {
+    private static final String TAG = "ItemRepository";
+    private static final String SECTION_PARSE_PAGE = "ItemRepository.parsePage";
+    private static final LatencyHistogram PAGE_PARSE_TIME = Metrics.histogram("items.page_parse");
+    private static final Counter ITEMS_PARSED = Metrics.counter("items.parsed");
+    private static final Counter PARSE_FAILURES = Metrics.counter("items.parse_failed");
+
+    public interface Listener {
+        // Called after a page finished loading, with all items loaded so far
+        void onItemsLoaded(List<Item> items);
+
+        void onItemAdded(Item item);
+
+        void onItemChanged(Item item);
+
+        void onItemRemoved(Item item);
+
+        void onError(DatabaseError databaseError);
+    }
+
+    private final FirebaseManager mManager;
+    private final DatabaseReference mItemsRef;
+    private final LocalItemStore mStore;
+    private final int mStatusId;
+    private final int mPageSize;
+
+    // Index field this repository pages over, and the range of values it covers.
+    // Values are strings for the status feeds, epoch milliseconds for the recent feed.
+    private final String mOrderChild;
+    private final Object mRangeStart;
+    @Nullable
+    private final String mRangeEnd;
+    private final boolean mByCreatedAt;
+    private final Comparator<Item> mOrder;
+    private final Listener mListener;
+
+    // Loaded items by id, plus the same items in mOrder
+    private final Map<String, Item> mIndex = new HashMap<>();
+    private final List<Item> mItems = new ArrayList<>();
+
+    private final List<Page> mPages = new ArrayList<>();
+    // Key and index value of the oldest loaded item, the cursor for the next page
+    private String mOldestKey;
+    private Object mOldestValue;
+    private boolean mLoading = false;
+    private boolean mHasMore = true;
+    // A range listener was cancelled, so the loaded pages no longer stay current
+    private boolean mListenerCancelled = false;
+    // Bumped on every load and detach so late bounds reads can be ignored
+    private int mGeneration = 0;
+
+    /**
+     * @param statusId Status to show, or Constants.STATUS_ACTIVE for everything not claimed
+     */
+    ItemRepository(FirebaseManager manager, DatabaseReference itemsRef, LocalItemStore store,
+                   int statusId, int pageSize, Listener listener) {
+        mManager = manager;
+        mItemsRef = itemsRef;
+        mStore = store;
+        mStatusId = statusId;
+        mPageSize = pageSize;
+        mListener = listener;
+        mByCreatedAt = false;
+        mOrder = ItemOrder.NEWEST_KEY_FIRST;
+
+        if (statusId == Constants.STATUS_ACTIVE) {
+            // Any string, claimed items have no active key at all
+            mOrderChild = FirebaseManager.FIELD_ACTIVE_KEY;
+            mRangeStart = "";
+            mRangeEnd = null;
+        } else {
+            // "{status}_" up to the next character after '_'
+            mOrderChild = FirebaseManager.FIELD_STATUS_KEY;
+            mRangeStart = statusId + "_";
+            mRangeEnd = statusId + "`";
+        }
+    }
+
+    /**
+     * @param createdSince Server time in epoch milliseconds of the oldest items to show
+     */
+    ItemRepository(FirebaseManager manager, DatabaseReference itemsRef, LocalItemStore store,
+                   long createdSince, int pageSize, Listener listener) {
+        mManager = manager;
+        mItemsRef = itemsRef;
+        mStore = store;
+        mStatusId = Constants.STATUS_ACTIVE;
+        mPageSize = pageSize;
+        mListener = listener;
+        mByCreatedAt = true;
+        mOrder = ItemOrder.NEWEST_CREATED_FIRST;
+
+        mOrderChild = FirebaseManager.FIELD_CREATED_AT;
+        mRangeStart = createdSince;
+        mRangeEnd = null;
+    }
+
+    public int getStatusId() {
+        return mStatusId;
+    }
+
+    /**
+     * Loaded items, newest first by getOrder(). Read-only live view.
+     */
+    public List<Item> getItems() {
+        return Collections.unmodifiableList(mItems);
+    }
+
+    public boolean isLoading() {
+        return mLoading;
+    }
+
+    public boolean hasMore() {
+        return mHasMore;
+    }
+
+    /**
+     * True once a page has loaded and its listeners keep it current, even
+     * if it held no items; false again after a detach or a cancelled listener
+     */
+    public boolean isLoaded() {
+        return !mPages.isEmpty() && !mListenerCancelled;
+    }
+
+    /**
+     * Newest-first order of the items, by push key or by creation time
+     */
+    public Comparator<Item> getOrder() {
+        return mOrder;
+    }
+
+    /**
+     * This feed's items from disk, in getOrder(), down to the oldest loaded
+     * one; before the first page, the newest page's worth
+     */
+    public Task<List<Item>> loadFromDisk() {
+        int limit = mOldestKey == null ? mPageSize : 0;
+        if (mByCreatedAt) {
+            long from = mOldestValue instanceof Number ?
+                    ((Number) mOldestValue).longValue() : (Long) mRangeStart;
+            return mStore.loadActiveItemsCreatedSince(from, limit);
+        }
+        if (mStatusId == Constants.STATUS_ACTIVE) {
+            return mStore.loadActiveItems(mOldestKey, limit);
+        }
+        return mStore.loadItemsWithStatus(mStatusId, mOldestKey, limit);
+    }
+
+    /**
+     * Load the next older page, if there is one and none is loading
+     */
+    public void loadNextPage() {
+        if (mLoading || !mHasMore) {
+            return;
+        }
+
+        final boolean isFirstPage = mPages.isEmpty();
+        final String endBeforeKey = mOldestKey;
+        final Object endBeforeValue = mOldestValue;
+        Query boundsQuery = isFirstPage ?
+                openRange(mRangeStart, null).limitToLast(mPageSize) :
+                endBefore(startAt(ordered(), mRangeStart, null), endBeforeValue, endBeforeKey)
+                        .limitToLast(mPageSize);
+
+        AppLog.d(TAG, "Loading page {}", mPages.size());
+        mLoading = true;
+        final int generation = ++mGeneration;
+
+        boundsQuery.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                // Drop results that arrive after a refresh or detach
+                if (generation != mGeneration) {
+                    return;
+                }
+
+                String lowestKey = null;
+                Object lowestValue = null;
+                List<Item> pageItems = new ArrayList<>();
+                Map<String, Object> loadedValues = new HashMap<>();
+                long start = Sections.begin(SECTION_PARSE_PAGE);
+                try {
+                    for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+                        if (lowestKey == null) {
+                            lowestKey = snapshot.getKey();
+                            lowestValue = snapshot.child(mOrderChild).getValue();
+                        }
+                        Object value = snapshot.getValue();
+                        loadedValues.put(snapshot.getKey(), value);
+                        putItem(snapshot.getKey(), value);
+                        Item item = mIndex.get(snapshot.getKey());
+                        if (item != null) {
+                            pageItems.add(item);
+                        }
+                    }
+                } finally {
+                    Sections.end(PAGE_PARSE_TIME, start);
+                }
+                if (dataSnapshot.getChildrenCount() < mPageSize) {
+                    mHasMore = false;
+                }
+
+                if (mByCreatedAt) {
+                    // Time ranges are not key ranges on disk, so rows are only added
+                    for (Item item : pageItems) {
+                        mStore.putItem(item);
+                    }
+                } else {
+                    // The last page also owns everything older than it
+                    mStore.replaceRange(mStatusId, mHasMore ? lowestKey : null,
+                            isFirstPage ? null : endBeforeKey, pageItems);
+                }
+
+                // Anchor the live listener on the bounds we just read, so
+                // later inserts and deletes never shift a page's window
+                Query rangeQuery;
+                if (isFirstPage) {
+                    rangeQuery = lowestValue != null ?
+                            openRange(lowestValue, lowestKey) : openRange(mRangeStart, null);
+                } else if (lowestValue != null) {
+                    rangeQuery = endBefore(startAt(ordered(), lowestValue, lowestKey),
+                            endBeforeValue, endBeforeKey);
+                } else {
+                    rangeQuery = null;
+                }
+                if (lowestKey != null) {
+                    mOldestKey = lowestKey;
+                    mOldestValue = lowestValue;
+                }
+
+                Page page = new Page(rangeQuery, loadedValues);
+                mPages.add(page);
+                if (rangeQuery != null) {
+                    rangeQuery.addChildEventListener(page);
+                    mManager.onListenerAttached();
+                }
+
+                mLoading = false;
+                mListener.onItemsLoaded(getItems());
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.e(TAG, "Page load cancelled: " + databaseError.getMessage());
+                if (generation != mGeneration) {
+                    return;
+                }
+                mLoading = false;
+                mListener.onError(databaseError);
+            }
+        });
+    }
+
+    /**
+     * Drop everything and load the first page again
+     */
+    public void refresh() {
+        detach();
+        mIndex.clear();
+        mItems.clear();
+        mOldestKey = null;
+        mOldestValue = null;
+        mHasMore = true;
+        loadNextPage();
+    }
+
+    /**
+     * Remove all listeners, e.g. when the screen goes away
+     */
+    public void detach() {
+        for (Page page : mPages) {
+            if (page.query != null) {
+                page.query.removeEventListener(page);
+                mManager.onListenerDetached();
+            }
+        }
+        mPages.clear();
+        mLoading = false;
+        mListenerCancelled = false;
+        mGeneration++;
+    }
+
+    private Query ordered() {
+        return mItemsRef.orderByChild(mOrderChild);
+    }
+
+    // From a value, and key if given, up to the end of this repository's range
+    private Query openRange(Object startValue, @Nullable String startKey) {
+        Query query = startAt(ordered(), startValue, startKey);
+        if (mByCreatedAt) {
+            // Items not migrated yet hold date text, which sorts after every number
+            return query.endAt(Long.MAX_VALUE);
+        }
+        return mRangeEnd != null ? query.endBefore(mRangeEnd) : query;
+    }
+
+    // Index values are strings or numbers; among equal values the key decides
+    private static Query startAt(Query query, Object value, @Nullable String key) {
+        if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            return key != null ? query.startAt(number, key) : query.startAt(number);
+        }
+        return key != null ? query.startAt((String) value, key) : query.startAt((String) value);
+    }
+
+    private static Query endBefore(Query query, Object value, String key) {
+        if (value instanceof Number) {
+            return query.endBefore(((Number) value).doubleValue(), key);
+        }
+        return query.endBefore((String) value, key);
+    }
+
+    @Nullable
+    static Item parse(DataSnapshot snapshot) {
+        return parse(snapshot.getKey(), snapshot.getValue());
+    }
+
+    @Nullable
+    private static Item parse(String key, Object value) {
+        ITEMS_PARSED.increment();
+        try {
+            return ItemMapper.fromValue(key, value);
+        } catch (Exception e) {
+            PARSE_FAILURES.increment();
+            Log.e(TAG, "Error parsing item: " + key, e);
+            return null;
+        }
+    }
+
+    // Add or replace one item, returns the previous version if there was one
+    @Nullable
+    private Item putItem(String key, Object value) {
+        Item item = parse(key, value);
+        if (item == null) {
+            return null;
+        }
+        Item previous = mIndex.put(item.getFirebase_id(), item);
+        if (previous != null) {
+            // Found by the old version's fields, the new one may sort elsewhere
+            mItems.remove(ItemOrder.indexOf(mItems, previous, mOrder));
+        }
+        mItems.add(ItemOrder.insertionIndex(mItems, item, mOrder), item);
+        return previous;
+    }
+
+    /**
+     * Bring the local row of an item that left our range in line with the
+     * server: delete it only if the item is gone, otherwise store its new
+     * status. No other feed may be listening where the item went.
+     */
+    private void syncRemovedItem(final String itemId) {
+        mItemsRef.child(itemId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                if (!dataSnapshot.exists()) {
+                    mStore.deleteItem(itemId);
+                    return;
+                }
+                Item item = parse(dataSnapshot);
+                if (item != null) {
+                    mStore.putItem(item);
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                // Keep the row, the next page load over its range corrects it
+                Log.w(TAG, "syncRemovedItem:onCancelled", databaseError.toException());
+            }
+        });
+    }
+
+    /**
+     * Live listener over one anchored key range
+     */
+    private class Page implements ChildEventListener {
+        final Query query;
+        // Raw values from the bounds read that the initial replay has yet to repeat
+        final Map<String, Object> loadedValues;
+
+        Page(Query query, Map<String, Object> loadedValues) {
+            this.query = query;
+            this.loadedValues = loadedValues;
+        }
+
+        @Override
+        public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            Object value = snapshot.getValue();
+            Object loaded = loadedValues.remove(snapshot.getKey());
+            if (loaded != null && loaded.equals(value)) {
+                // Replay of a child the bounds read already parsed and stored
+                return;
+            }
+
+            // Changed since the bounds read, or new
+            boolean known = mIndex.containsKey(snapshot.getKey());
+            putItem(snapshot.getKey(), value);
+            Item item = mIndex.get(snapshot.getKey());
+            if (item == null) {
+                return;
+            }
+            mStore.putItem(item);
+            if (known) {
+                mListener.onItemChanged(item);
+            } else {
+                mListener.onItemAdded(item);
+            }
+        }
+
+        @Override
+        public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            putItem(snapshot.getKey(), snapshot.getValue());
+            Item item = mIndex.get(snapshot.getKey());
+            if (item != null) {
+                mStore.putItem(item);
+                mListener.onItemChanged(item);
+            }
+        }
+
+        @Override
+        public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+            // Deleted, or its status moved it out of this range
+            Item removed = mIndex.remove(snapshot.getKey());
+            syncRemovedItem(snapshot.getKey());
+            if (removed != null) {
+                mItems.remove(ItemOrder.indexOf(mItems, removed, mOrder));
+                mListener.onItemRemoved(removed);
+            }
+        }
+
+        @Override
+        public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            // Index values end in the key and creation times never change,
+            // so a move never changes our order
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError databaseError) {
+            Log.e(TAG, "Range listener cancelled: " + databaseError.getMessage());
+            mListenerCancelled = true;
+            mListener.onError(databaseError);
+        }
+    }
+}
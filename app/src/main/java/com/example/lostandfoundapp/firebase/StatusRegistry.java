@@ -0,0 +1,281 @@
+package com.example.lostandfoundapp.firebase;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Color;
+import android.util.Log;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.lostandfoundapp.R;
+import com.example.lostandfoundapp.model.ItemMapper;
+import com.example.lostandfoundapp.model.ItemStatus;
+import com.example.lostandfoundapp.utils.AppLog;
+import com.example.lostandfoundapp.utils.Constants;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Item statuses by status_id, with labels and colors ready to bind. The
+ * item_status node is only read again when item_status_version changes, and
+ * the last copy read is kept on the device, so a normal start costs one
+ * small read and no parsing. Until anything is read, the built-in statuses
+ * are used.
+ *
+ * Creating the registry does no disk I/O; the saved copy is read by
+ * loadSaved(), which startup runs off the main thread.
+ */
+public class StatusRegistry {
+    private static final String TAG = "StatusRegistry";
+
+    private static final String PREFS_NAME = "item_status";
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_STATUSES = "statuses";
+
+    // Version of the statuses seeded below
+    private static final long SEED_VERSION = 1;
+    // Nothing read from the server yet. A database without a version node counts as version 0.
+    private static final long NO_VERSION = -1;
+
+    private static StatusRegistry instance;
+
+    /**
+     * One status, its color already parsed
+     */
+    public static final class Status {
+        private final int id;
+        private final String label;
+        private final String colorHex;
+        private final int color;
+
+        Status(int id, String label, String colorHex, int color) {
+            this.id = id;
+            this.label = label;
+            this.colorHex = colorHex;
+            this.color = color;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getColor() {
+            return color;
+        }
+    }
+
+    private final SharedPreferences mPrefs;
+    private final int mFallbackColor;
+    // Replaced as a whole, never changed in place
+    private volatile SparseArray<Status> mStatuses;
+    // Changed together with mStatuses, under the registry's lock
+    private volatile long mVersion;
+
+    private StatusRegistry(Context context) {
+        mPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        mFallbackColor = ContextCompat.getColor(context, R.color.colorPrimary);
+        mStatuses = builtIn(context);
+        mVersion = NO_VERSION;
+    }
+
+    /**
+     * Called once from the Application
+     */
+    public static synchronized void initialize(Context context) {
+        if (instance == null) {
+            instance = new StatusRegistry(context.getApplicationContext());
+        }
+    }
+
+    public static synchronized StatusRegistry getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("StatusRegistry.initialize() was not called");
+        }
+        return instance;
+    }
+
+    /**
+     * The status with this id, null if there is none
+     */
+    @Nullable
+    public Status get(int statusId) {
+        return mStatuses.get(statusId);
+    }
+
+    // Label to show for a status id, empty if it is unknown
+    public String getLabel(int statusId) {
+        Status status = mStatuses.get(statusId);
+        return status != null ? status.getLabel() : "";
+    }
+
+    // Background color for a status id, the primary color if it is unknown
+    public int getColor(int statusId) {
+        Status status = mStatuses.get(statusId);
+        return status != null ? status.getColor() : mFallbackColor;
+    }
+
+    /**
+     * Compare the server's status version with ours, and read the statuses
+     * again only if it moved. Seeds both when the database has no statuses yet.
+     */
+    void sync(final DatabaseReference statusRef, final DatabaseReference versionRef) {
+        versionRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                Long stored = dataSnapshot.getValue(Long.class);
+                long version = stored != null ? stored : 0;
+                if (version == mVersion) {
+                    AppLog.d(TAG, "Statuses up to date at version {}", version);
+                    return;
+                }
+                load(statusRef, versionRef, version);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.w(TAG, "sync:onCancelled", databaseError.toException());
+            }
+        });
+    }
+
+    private void load(final DatabaseReference statusRef, final DatabaseReference versionRef, final long version) {
+        statusRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                if (!dataSnapshot.exists()) {
+                    seed(statusRef, versionRef);
+                    return;
+                }
+
+                JSONArray saved = new JSONArray();
+                SparseArray<Status> statuses = new SparseArray<>();
+                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+                    ItemStatus status = ItemMapper.statusFromValue(snapshot.getValue());
+                    if (status == null || status.getName() == null) {
+                        continue;
+                    }
+                    Status parsed = parse(status.getId(), status.getName(), status.getColor());
+                    statuses.put(parsed.id, parsed);
+                    saved.put(toJson(parsed));
+                }
+                synchronized (StatusRegistry.this) {
+                    mStatuses = statuses;
+                    mVersion = version;
+                }
+                mPrefs.edit()
+                        .putLong(KEY_VERSION, version)
+                        .putString(KEY_STATUSES, saved.toString())
+                        .apply();
+                AppLog.d(TAG, "Loaded {} statuses at version {}", statuses.size(), version);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.w(TAG, "load:onCancelled", databaseError.toException());
+            }
+        });
+    }
+
+    // Write the built-in statuses and their version, for a fresh database
+    private void seed(DatabaseReference statusRef, DatabaseReference versionRef) {
+        Map<String, Object> statusMap = new HashMap<>();
+        SparseArray<Status> statuses = mStatuses;
+        for (int i = 0; i < statuses.size(); i++) {
+            Status status = statuses.valueAt(i);
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("id", status.id);
+            fields.put("name", status.label);
+            fields.put("color", status.colorHex);
+            statusMap.put(String.valueOf(status.id), fields);
+        }
+        statusRef.setValue(statusMap);
+        versionRef.setValue(SEED_VERSION);
+        mVersion = SEED_VERSION;
+        AppLog.d(TAG, "Seeded statuses at version {}", SEED_VERSION);
+    }
+
+    /**
+     * Read the statuses saved by an earlier run. Does disk I/O. Does nothing
+     * if the server has already answered.
+     */
+    public void loadSaved() {
+        String saved = mPrefs.getString(KEY_STATUSES, null);
+        if (saved == null) {
+            return;
+        }
+        try {
+            JSONArray array = new JSONArray(saved);
+            SparseArray<Status> statuses = new SparseArray<>();
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject json = array.getJSONObject(i);
+                Status status = parse(json.getInt("id"), json.getString("name"), json.optString("color", null));
+                statuses.put(status.id, status);
+            }
+            long version = mPrefs.getLong(KEY_VERSION, NO_VERSION);
+            synchronized (this) {
+                if (mVersion == NO_VERSION) {
+                    mStatuses = statuses;
+                    mVersion = version;
+                }
+            }
+        } catch (JSONException e) {
+            // Keep the built-in statuses, the next sync reads them again
+            Log.e(TAG, "Error reading saved statuses", e);
+        }
+    }
+
+    private Status parse(int id, String label, @Nullable String colorHex) {
+        int color = mFallbackColor;
+        if (colorHex != null) {
+            try {
+                color = Color.parseColor(colorHex);
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "Error parsing color of status " + id + ": " + colorHex, e);
+            }
+        }
+        return new Status(id, label, colorHex, color);
+    }
+
+    private static JSONObject toJson(Status status) {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("id", status.id);
+            json.put("name", status.label);
+            json.put("color", status.colorHex);
+        } catch (JSONException e) {
+            // Only thrown for non-finite numbers
+            throw new IllegalStateException(e);
+        }
+        return json;
+    }
+
+    private static SparseArray<Status> builtIn(Context context) {
+        SparseArray<Status> statuses = new SparseArray<>();
+        putBuiltIn(statuses, context, Constants.STATUS_LOST, R.string.lost, R.color.statusLost);
+        putBuiltIn(statuses, context, Constants.STATUS_FOUND, R.string.found, R.color.statusFound);
+        putBuiltIn(statuses, context, Constants.STATUS_CLAIMED, R.string.claimed, R.color.statusClaimed);
+        return statuses;
+    }
+
+    private static void putBuiltIn(SparseArray<Status> statuses, Context context, int id, int labelRes, int colorRes) {
+        int color = ContextCompat.getColor(context, colorRes);
+        String colorHex = String.format("#%06x", color & 0xFFFFFF);
+        statuses.put(id, new Status(id, context.getString(labelRes), colorHex, color));
+    }
+}
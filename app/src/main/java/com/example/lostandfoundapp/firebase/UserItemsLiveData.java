@@ -0,0 +1,185 @@
+package com.example.lostandfoundapp.firebase;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+
+import com.example.lostandfoundapp.database.LocalItemStore;
+import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.utils.Constants;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One shared subscription to the current user's items, split into active and
+ * archived items. LiveData counts the observers for us: the Firebase listener
+ * is attached when the first tab starts observing and removed when the last
+ * one stops. The Profile tab is hidden rather than destroyed when the user
+ * switches tabs, and its observers stay active, so it also pauses the stream
+ * while hidden. Logging out closes the stream for good.
+ */
+public class UserItemsLiveData extends LiveData<UserItemsLiveData.UserItems> {
+    private static final String TAG = "UserItemsLiveData";
+
+    /**
+     * The user's items, partitioned by whether they are claimed
+     */
+    public static class UserItems {
+        private final List<Item> activeItems;
+        private final List<Item> archivedItems;
+        private final boolean fromNetwork;
+        @Nullable
+        private final DatabaseError error;
+
+        UserItems(List<Item> activeItems, List<Item> archivedItems, boolean fromNetwork,
+                  @Nullable DatabaseError error) {
+            this.activeItems = Collections.unmodifiableList(activeItems);
+            this.archivedItems = Collections.unmodifiableList(archivedItems);
+            this.fromNetwork = fromNetwork;
+            this.error = error;
+        }
+
+        public List<Item> getActiveItems() {
+            return activeItems;
+        }
+
+        public List<Item> getArchivedItems() {
+            return archivedItems;
+        }
+
+        // False while only the copy on disk is known
+        public boolean isFromNetwork() {
+            return fromNetwork;
+        }
+
+        @Nullable
+        public DatabaseError getError() {
+            return error;
+        }
+    }
+
+    private final String mUserId;
+    private final Query mQuery;
+    private final LocalItemStore mStore;
+    private final FirebaseManager mManager;
+
+    // Whether mListener is on mQuery, it is only while observed and not paused or closed
+    private boolean mAttached = false;
+    private boolean mPaused = false;
+    private boolean mClosed = false;
+
+    private final ValueEventListener mListener = new ValueEventListener() {
+        @Override
+        public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+            List<Item> items = new ArrayList<>();
+            for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+                Item item = ItemRepository.parse(snapshot);
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+            // Newest first, like the other lists
+            Collections.reverse(items);
+
+            mStore.replaceUserItems(mUserId, items);
+            setValue(partition(items, true, null));
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError databaseError) {
+            Log.e(TAG, "User items listener cancelled: " + databaseError.getMessage());
+            UserItems previous = getValue();
+            setValue(previous != null ?
+                    new UserItems(previous.activeItems, previous.archivedItems, previous.fromNetwork, databaseError) :
+                    new UserItems(new ArrayList<Item>(), new ArrayList<Item>(), true, databaseError));
+        }
+    };
+
+    UserItemsLiveData(FirebaseManager manager, String userId, Query query, LocalItemStore store) {
+        mManager = manager;
+        mUserId = userId;
+        mQuery = query;
+        mStore = store;
+    }
+
+    public String getUserId() {
+        return mUserId;
+    }
+
+    @Override
+    protected void onActive() {
+        // First observer: show what is on disk until the network answers
+        if (getValue() == null) {
+            mStore.loadItemsOfUser(mUserId).addOnCompleteListener(new OnCompleteListener<List<Item>>() {
+                @Override
+                public void onComplete(@NonNull Task<List<Item>> task) {
+                    if (getValue() == null && task.isSuccessful()) {
+                        setValue(partition(task.getResult(), false, null));
+                    }
+                }
+            });
+        }
+        updateListener();
+    }
+
+    @Override
+    protected void onInactive() {
+        // Last observer gone
+        updateListener();
+    }
+
+    /**
+     * Stop listening while no screen shows the items, even if observers are
+     * still active, and start again once they are shown. The last value stays.
+     */
+    public void setPaused(boolean paused) {
+        mPaused = paused;
+        updateListener();
+    }
+
+    /**
+     * Remove the listener for good, e.g. when the user logs out
+     */
+    public void close() {
+        mClosed = true;
+        updateListener();
+    }
+
+    private void updateListener() {
+        boolean attach = hasActiveObservers() && !mPaused && !mClosed;
+        if (attach == mAttached) {
+            return;
+        }
+        mAttached = attach;
+        if (attach) {
+            mQuery.addValueEventListener(mListener);
+            mManager.onListenerAttached();
+        } else {
+            mQuery.removeEventListener(mListener);
+            mManager.onListenerDetached();
+        }
+    }
+
+    private static UserItems partition(List<Item> items, boolean fromNetwork, @Nullable DatabaseError error) {
+        List<Item> active = new ArrayList<>();
+        List<Item> archived = new ArrayList<>();
+        for (Item item : items) {
+            if (item.getStatus_id() == Constants.STATUS_CLAIMED) {
+                archived.add(item);
+            } else {
+                active.add(item);
+            }
+        }
+        return new UserItems(active, archived, fromNetwork, error);
+    }
+}
@@ -0,0 +1,430 @@
+package com.example.lostandfoundapp.firebase;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.lostandfoundapp.database.PendingWriteStore;
+import com.example.lostandfoundapp.database.PendingWriteStore.PendingWrite;
+import com.example.lostandfoundapp.metrics.Counter;
+import com.example.lostandfoundapp.metrics.LatencyHistogram;
+import com.example.lostandfoundapp.metrics.Metrics;
+import com.example.lostandfoundapp.utils.AppLog;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbound queue for item edits and status changes. Writes are saved to
+ * disk before they are sent, so they survive process death and are sent
+ * again on the next start. Writes to the same path coalesce while they wait,
+ * and everything waiting goes out as one multi-path updateChildren.
+ *
+ * Values are absolute, so sending a write twice after a crash or a retry
+ * leaves the same data as sending it once. Deleting an item through the
+ * queue replaces every write still waiting below it, and a field write
+ * whose item is gone by the time it is sent is dropped rather than sent,
+ * so a late edit never brings a deleted item back as a partial one.
+ */
+public class WriteQueue {
+    private static final String TAG = "WriteQueue";
+    // Round trip of one batch, from sending it to the server's answer
+    private static final LatencyHistogram BATCH_TIME = Metrics.histogram("firebase.write.batch");
+    private static final Counter BATCHES_FAILED = Metrics.counter("firebase.write.batch_failed");
+
+    // A batch the server keeps rejecting is dropped after this many tries
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long INITIAL_RETRY_DELAY_MS = 2000;
+    private static final long MAX_RETRY_DELAY_MS = 60000;
+
+    // Field writes below items/{id}/ need their item to still exist
+    private static final String ITEMS_PREFIX = "items/";
+    // Every stored item has this child
+    private static final String ITEM_REQUIRED_CHILD = "user_id";
+
+    /**
+     * State of one enqueued write. Queued completes once it is safely on
+     * disk, committed once the server has accepted it, or a later write that
+     * replaced it.
+     */
+    public static class Operation {
+        private final TaskCompletionSource<Void> mQueued = new TaskCompletionSource<>();
+        private final TaskCompletionSource<Void> mCommitted = new TaskCompletionSource<>();
+        private final AtomicInteger mRemainingPaths = new AtomicInteger();
+
+        public Task<Void> getQueued() {
+            return mQueued.getTask();
+        }
+
+        public Task<Void> getCommitted() {
+            return mCommitted.getTask();
+        }
+
+        public boolean isPending() {
+            return !mCommitted.getTask().isComplete();
+        }
+
+        void pathCommitted() {
+            if (mRemainingPaths.decrementAndGet() == 0) {
+                mCommitted.trySetResult(null);
+            }
+        }
+
+        void fail(Exception e) {
+            mQueued.trySetException(e);
+            mCommitted.trySetException(e);
+        }
+    }
+
+    /**
+     * Where batches are sent: the realtime database, or a stand-in in tests
+     */
+    interface Remote {
+        // Apply one multi-path update, paths relative to the database root
+        Task<Void> updateChildren(Map<String, Object> updates);
+
+        // Whether items/{itemId} still exists
+        Task<Boolean> itemExists(String itemId);
+    }
+
+    // An operation waiting for the write it made to one path
+    private static class Waiter {
+        final long version;
+        final Operation operation;
+
+        Waiter(long version, Operation operation) {
+            this.version = version;
+            this.operation = operation;
+        }
+    }
+
+    private final PendingWriteStore mStore;
+    private final Remote mRemote;
+    private final ExecutorService mExecutor;
+    private final Handler mMainHandler;
+
+    // Only touched on the executor
+    private final Map<String, List<Waiter>> mWaiters = new HashMap<>();
+    private boolean mInFlight = false;
+    private long mRetryDelayMs = INITIAL_RETRY_DELAY_MS;
+
+    public WriteQueue(PendingWriteStore store, FirebaseDatabase database) {
+        this(store, new DatabaseRemote(database.getReference()));
+
+        // Retry at once on reconnect
+        database.getReference(".info/connected").addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                Boolean connected = dataSnapshot.getValue(Boolean.class);
+                if (connected != null && connected) {
+                    mExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            mRetryDelayMs = INITIAL_RETRY_DELAY_MS;
+                            flush();
+                        }
+                    });
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.w(TAG, "connected:onCancelled " + databaseError.getMessage());
+            }
+        });
+    }
+
+    WriteQueue(PendingWriteStore store, Remote remote) {
+        mStore = store;
+        mRemote = remote;
+        mExecutor = Executors.newSingleThreadExecutor();
+        mMainHandler = new Handler(Looper.getMainLooper());
+
+        // Send whatever an earlier process left behind
+        requestFlush();
+    }
+
+    /**
+     * Queue writes to several paths, relative to the database root, as one operation
+     */
+    public Operation enqueue(final Map<String, Object> updates) {
+        final Operation operation = new Operation();
+        final Map<String, Object> copy = new HashMap<>(updates);
+        operation.mRemainingPaths.set(copy.size());
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Map<String, Long> versions;
+                try {
+                    versions = mStore.put(copy);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error saving writes " + copy.keySet(), e);
+                    operation.fail(e);
+                    return;
+                }
+
+                for (Map.Entry<String, Long> version : versions.entrySet()) {
+                    List<Waiter> waiters = mWaiters.get(version.getKey());
+                    if (waiters == null) {
+                        waiters = new ArrayList<>();
+                        mWaiters.put(version.getKey(), waiters);
+                    }
+                    waiters.add(new Waiter(version.getValue(), operation));
+                }
+                operation.mQueued.trySetResult(null);
+                if (copy.isEmpty()) {
+                    operation.mCommitted.trySetResult(null);
+                }
+                flush();
+            }
+        });
+        return operation;
+    }
+
+    private void requestFlush() {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        });
+    }
+
+    // Send everything waiting as one batch, unless a batch is already out
+    private void flush() {
+        if (mInFlight) {
+            return;
+        }
+
+        List<PendingWrite> pending;
+        try {
+            pending = mStore.loadAll();
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading pending writes", e);
+            return;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // A multi-path update cannot hold a path and one below it, leave those for the next batch
+        final List<PendingWrite> batch = new ArrayList<>();
+        Set<String> paths = new HashSet<>();
+        for (PendingWrite write : pending) {
+            if (!hasAncestorIn(write.getPath(), paths)) {
+                batch.add(write);
+                paths.add(write.getPath());
+            }
+        }
+
+        mInFlight = true;
+        Set<String> itemIds = new HashSet<>();
+        for (PendingWrite write : batch) {
+            String itemId = itemIdOfField(write.getPath());
+            if (itemId != null) {
+                itemIds.add(itemId);
+            }
+        }
+        if (itemIds.isEmpty()) {
+            send(batch, pending.size());
+        } else {
+            sendIfItemsExist(batch, pending.size(), itemIds);
+        }
+    }
+
+    // Look up the items the batch writes fields of, then send what still has an item
+    private void sendIfItemsExist(final List<PendingWrite> batch, final int pendingCount, Set<String> itemIds) {
+        final Map<String, Boolean> exists = new HashMap<>();
+        final AtomicInteger remaining = new AtomicInteger(itemIds.size());
+        for (final String itemId : itemIds) {
+            mRemote.itemExists(itemId).addOnCompleteListener(mExecutor, new OnCompleteListener<Boolean>() {
+                @Override
+                public void onComplete(@NonNull Task<Boolean> task) {
+                    if (task.isSuccessful()) {
+                        exists.put(itemId, Boolean.TRUE.equals(task.getResult()));
+                    } else {
+                        // Unknown, send it and let the server's rules decide
+                        Log.w(TAG, "Checking item " + itemId + " failed", task.getException());
+                        exists.put(itemId, true);
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        dropWritesToDeletedItems(batch, exists);
+                        if (batch.isEmpty()) {
+                            mInFlight = false;
+                            flush();
+                        } else {
+                            send(batch, pendingCount);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private void dropWritesToDeletedItems(List<PendingWrite> batch, Map<String, Boolean> exists) {
+        Iterator<PendingWrite> writes = batch.iterator();
+        while (writes.hasNext()) {
+            PendingWrite write = writes.next();
+            String itemId = itemIdOfField(write.getPath());
+            if (itemId != null && !exists.get(itemId)) {
+                AppLog.d(TAG, "Dropping write to {}, its item was deleted", write.getPath());
+                mStore.remove(write.getPath(), write.getVersion());
+                resolve(write.getPath(), write.getVersion(), new Exception("Item was deleted"));
+                writes.remove();
+            }
+        }
+    }
+
+    private void send(final List<PendingWrite> batch, int pendingCount) {
+        Map<String, Object> updates = new HashMap<>();
+        for (PendingWrite write : batch) {
+            updates.put(write.getPath(), write.getValue());
+        }
+        AppLog.d(TAG, "Sending {} of {} pending writes", batch.size(), pendingCount);
+        final long sentAt = System.nanoTime();
+        mRemote.updateChildren(updates).addOnCompleteListener(mExecutor, new OnCompleteListener<Void>() {
+            @Override
+            public void onComplete(@NonNull Task<Void> task) {
+                BATCH_TIME.recordSince(sentAt);
+                mInFlight = false;
+                if (task.isSuccessful()) {
+                    onBatchCommitted(batch);
+                } else {
+                    onBatchFailed(batch, task.getException());
+                }
+            }
+        });
+    }
+
+    private void onBatchCommitted(List<PendingWrite> batch) {
+        for (PendingWrite write : batch) {
+            // A newer write to the path keeps its row and is sent next
+            mStore.remove(write.getPath(), write.getVersion());
+            resolve(write.getPath(), write.getVersion(), null);
+        }
+        mRetryDelayMs = INITIAL_RETRY_DELAY_MS;
+        flush();
+    }
+
+    private void onBatchFailed(List<PendingWrite> batch, Exception e) {
+        BATCHES_FAILED.increment();
+        Log.w(TAG, "Batch of " + batch.size() + " writes failed", e);
+        Exception error = e != null ? e : new Exception("Write failed");
+        for (PendingWrite write : batch) {
+            if (write.getAttempts() + 1 >= MAX_ATTEMPTS) {
+                Log.e(TAG, "Dropping write to " + write.getPath() + " after " + MAX_ATTEMPTS + " attempts");
+                mStore.remove(write.getPath(), write.getVersion());
+                resolve(write.getPath(), write.getVersion(), error);
+            } else {
+                mStore.recordAttempt(write.getPath(), write.getVersion());
+            }
+        }
+
+        long delay = mRetryDelayMs;
+        mRetryDelayMs = Math.min(mRetryDelayMs * 2, MAX_RETRY_DELAY_MS);
+        mMainHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                requestFlush();
+            }
+        }, delay);
+    }
+
+    // Settle every operation waiting on this path, or below it, at this version or older
+    private void resolve(String path, long version, Exception error) {
+        Iterator<Map.Entry<String, List<Waiter>>> entries = mWaiters.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, List<Waiter>> entry = entries.next();
+            if (!entry.getKey().equals(path) && !entry.getKey().startsWith(path + "/")) {
+                continue;
+            }
+            Iterator<Waiter> waiters = entry.getValue().iterator();
+            while (waiters.hasNext()) {
+                Waiter waiter = waiters.next();
+                if (waiter.version > version) {
+                    continue;
+                }
+                if (error == null) {
+                    waiter.operation.pathCommitted();
+                } else {
+                    waiter.operation.fail(error);
+                }
+                waiters.remove();
+            }
+            if (entry.getValue().isEmpty()) {
+                entries.remove();
+            }
+        }
+    }
+
+    // The item a path writes a field of, null for any other path
+    static String itemIdOfField(String path) {
+        if (!path.startsWith(ITEMS_PREFIX)) {
+            return null;
+        }
+        int slash = path.indexOf('/', ITEMS_PREFIX.length());
+        return slash > ITEMS_PREFIX.length() ? path.substring(ITEMS_PREFIX.length(), slash) : null;
+    }
+
+    // The realtime database, relative to its root
+    private static class DatabaseRemote implements Remote {
+        private final DatabaseReference mRoot;
+
+        DatabaseRemote(DatabaseReference root) {
+            mRoot = root;
+        }
+
+        @Override
+        public Task<Void> updateChildren(Map<String, Object> updates) {
+            return mRoot.updateChildren(updates);
+        }
+
+        @Override
+        public Task<Boolean> itemExists(String itemId) {
+            final TaskCompletionSource<Boolean> result = new TaskCompletionSource<>();
+            // Every stored item has the required child, checking it reads almost nothing
+            mRoot.child(ITEMS_PREFIX + itemId + "/" + ITEM_REQUIRED_CHILD)
+                    .addListenerForSingleValueEvent(new ValueEventListener() {
+                        @Override
+                        public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                            result.setResult(dataSnapshot.exists());
+                        }
+
+                        @Override
+                        public void onCancelled(@NonNull DatabaseError databaseError) {
+                            result.setException(databaseError.toException());
+                        }
+                    });
+            return result.getTask();
+        }
+    }
+
+    private static boolean hasAncestorIn(String path, Set<String> paths) {
+        int slash = path.indexOf('/');
+        while (slash >= 0) {
+            if (paths.contains(path.substring(0, slash))) {
+                return true;
+            }
+            slash = path.indexOf('/', slash + 1);
+        }
+        return false;
+    }
+}
@@ -9,7 +9,6 @@ import android.os.Handler;
 import android.os.Looper;
 import android.provider.MediaStore;
 import android.text.TextUtils;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -24,9 +23,12 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
+import com.example.lostandfoundapp.MainActivity;
 import com.example.lostandfoundapp.R;
 import com.example.lostandfoundapp.firebase.FirebaseManager;
+import com.example.lostandfoundapp.images.ImageUploadPipeline;
 import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.utils.AppLog;
 import com.example.lostandfoundapp.utils.Constants;
 import com.example.lostandfoundapp.utils.FirebaseSessionManager;
 import com.google.android.gms.tasks.OnCompleteListener;
@@ -51,6 +53,8 @@ public class AddItemFragment extends Fragment {
     private FirebaseManager firebaseManager;
     private FirebaseSessionManager sessionManager;
     private boolean isSubmitting = false;
+    // Running image upload, cancelled if the user leaves before it finishes
+    private ImageUploadPipeline.UploadHandle uploadHandle;
 
     @Nullable
     @Override
@@ -197,22 +201,22 @@ public class AddItemFragment extends Fragment {
         item.setContact_phone(contactPhone);
         item.setContact_email(contactEmail);
 
-        // Add safety timeout for submission
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
+        // Submit item to Firebase, the image is processed in the background
+        uploadHandle = firebaseManager.createItem(item, selectedImageUri, new ImageUploadPipeline.ProgressListener() {
             @Override
-            public void run() {
-                if (isSubmitting) {
-                    Log.d(TAG, "Safety timeout triggered for item submission");
-                    completeSubmission(true);
+            public void onProgress(int percent) {
+                if (isSubmitting && isAdded()) {
+                    buttonSubmit.setText(getString(R.string.uploading_progress, percent));
                 }
             }
-        }, 1000); // 5 second safety timeout
-
-        // Submit item to Firebase
-        firebaseManager.createItem(item, selectedImageUri, new OnCompleteListener<Item>() {
+        }, new OnCompleteListener<Item>() {
             @Override
             public void onComplete(@NonNull Task<Item> task) {
-                Log.d(TAG, "Item submission complete, success=" + task.isSuccessful());
+                if (task.isCanceled()) {
+                    AppLog.d(TAG, "Item submission cancelled");
+                    return;
+                }
+                AppLog.d(TAG, "Item submission complete, success={}", task.isSuccessful());
                 isSubmitting = false;
                 completeSubmission(task.isSuccessful());
             }
@@ -228,13 +232,16 @@ public class AddItemFragment extends Fragment {
 
         // Check if fragment is still attached
         if (!isAdded() || getActivity() == null) {
-            Log.d(TAG, "Fragment no longer attached, skipping UI updates");
+            AppLog.d(TAG, "Fragment no longer attached, skipping UI updates");
             return;
         }
 
         // Hide progress and enable submit button
+        isSubmitting = false;
+        uploadHandle = null;
         progressBar.setVisibility(View.GONE);
         buttonSubmit.setEnabled(true);
+        buttonSubmit.setText(R.string.submit);
 
         if (success) {
             // Show success message
@@ -243,13 +250,9 @@ public class AddItemFragment extends Fragment {
             // Clear form
             clearForm();
 
-            // Switch to home fragment
-            try {
-                getActivity().getSupportFragmentManager().beginTransaction()
-                        .replace(R.id.fragment_container, new HomeFragment())
-                        .commit();
-            } catch (Exception e) {
-                Log.e(TAG, "Error switching to home fragment", e);
+            // Switch back to the home tab, the new item arrives there as a live change
+            if (getActivity() instanceof MainActivity) {
+                ((MainActivity) getActivity()).selectTab(R.id.navigation_home);
             }
         } else {
             Toast.makeText(getContext(), "Failed to post item. Please try again.", Toast.LENGTH_SHORT).show();
@@ -264,4 +267,14 @@ public class AddItemFragment extends Fragment {
         imageViewItem.setImageResource(R.drawable.image_placeholder_background);
         selectedImageUri = null;
     }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        // The user backed out before the upload finished
+        if (isSubmitting && uploadHandle != null) {
+            uploadHandle.cancel();
+        }
+        uploadHandle = null;
+    }
 }
\ No newline at end of file
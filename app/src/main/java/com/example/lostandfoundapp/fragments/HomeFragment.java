@@ -2,7 +2,6 @@ package com.example.lostandfoundapp.fragments;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -16,6 +15,8 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
@@ -23,43 +24,29 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.example.lostandfoundapp.R;
 import com.example.lostandfoundapp.activities.ItemDetailActivity;
 import com.example.lostandfoundapp.adapters.ItemAdapter;
-import com.example.lostandfoundapp.firebase.FirebaseManager;
+import com.example.lostandfoundapp.adapters.ItemViewPool;
 import com.example.lostandfoundapp.model.Item;
-import com.example.lostandfoundapp.utils.Constants;
-import com.example.lostandfoundapp.utils.FirebaseSessionManager;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.ValueEventListener;
+import com.example.lostandfoundapp.startup.StartupOrchestrator;
+import com.example.lostandfoundapp.viewmodels.HomeViewModel;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class HomeFragment extends Fragment implements ItemAdapter.OnItemClickListener {
 
-    private static final String TAG = "HomeFragment";
     private RecyclerView recyclerViewItems;
     private SwipeRefreshLayout swipeRefreshLayout;
     private ProgressBar progressBar;
     private TextView textViewEmpty;
-    private Button buttonFilterAll, buttonFilterLost, buttonFilterFound;
+    private Button buttonFilterAll, buttonFilterLost, buttonFilterFound, buttonFilterRecent;
     private com.google.android.material.floatingactionbutton.FloatingActionButton buttonSearch;
     private com.google.android.material.textfield.TextInputLayout searchInputLayout;
     private com.google.android.material.textfield.TextInputEditText editTextSearch;
     private LinearLayout layoutHeaderContent;
-    private boolean isSearchMode = false;
 
     private ItemAdapter itemAdapter;
-    private List<Item> itemList;
-    private List<Item> allItemsList; // To store all items before filtering
-    private FirebaseManager firebaseManager;
-    private FirebaseSessionManager sessionManager;
-    private ValueEventListener itemsValueEventListener;
-
-    // Filter type constants
-    private static final int FILTER_ALL = 0;
-    private static final int FILTER_LOST = 1;
-    private static final int FILTER_FOUND = 2;
-    private int currentFilter = FILTER_ALL;
+    private LinearLayoutManager layoutManager;
+    // Lists, filter and search live here, so they outlast this fragment's views
+    private HomeViewModel viewModel;
 
     @Nullable
     @Override
@@ -76,6 +63,7 @@ public class HomeFragment extends Fragment implements ItemAdapter.OnItemClickLis
         buttonFilterAll = view.findViewById(R.id.buttonFilterAll);
         buttonFilterLost = view.findViewById(R.id.buttonFilterLost);
         buttonFilterFound = view.findViewById(R.id.buttonFilterFound);
+        buttonFilterRecent = view.findViewById(R.id.buttonFilterRecent);
 
         // Initialize search components
         buttonSearch = view.findViewById(R.id.buttonSearch);
@@ -83,22 +71,35 @@ public class HomeFragment extends Fragment implements ItemAdapter.OnItemClickLis
         editTextSearch = view.findViewById(R.id.editTextSearch);
         layoutHeaderContent = view.findViewById(R.id.layoutHeaderContent);
 
-        // Initialize Firebase manager and session manager
-        firebaseManager = FirebaseManager.getInstance();
-        sessionManager = new FirebaseSessionManager(getContext());
+        // Shared with the activity, survives rotation and tab switches
+        viewModel = new ViewModelProvider(requireActivity()).get(HomeViewModel.class);
 
         // Set up RecyclerView
-        recyclerViewItems.setLayoutManager(new LinearLayoutManager(getContext()));
-        itemList = new ArrayList<>();
-        allItemsList = new ArrayList<>();
-        itemAdapter = new ItemAdapter(getContext(), itemList, this);
+        layoutManager = new LinearLayoutManager(getContext());
+        recyclerViewItems.setLayoutManager(layoutManager);
+        // Rows come from, and go back to, the pool shared with the other lists
+        ItemViewPool viewPool = ItemViewPool.from(getContext());
+        if (viewPool != null) {
+            viewPool.attach(recyclerViewItems, layoutManager);
+        }
+        itemAdapter = new ItemAdapter(getContext(), this);
         recyclerViewItems.setAdapter(itemAdapter);
 
+        // Load the next page as the user nears the end of the list
+        recyclerViewItems.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0) {
+                    loadMoreIfNeeded();
+                }
+            }
+        });
+
         // Set up SwipeRefreshLayout
         swipeRefreshLayout.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
             @Override
             public void onRefresh() {
-                loadItems();
+                viewModel.refresh();
             }
         });
 
@@ -113,6 +114,13 @@ public class HomeFragment extends Fragment implements ItemAdapter.OnItemClickLis
             }
         });
 
+        // Put back a search that was open before the view was recreated,
+        // before the watcher below would treat it as typing
+        if (viewModel.isSearchMode()) {
+            showSearchBar(true);
+            editTextSearch.setText(viewModel.getSearchQuery());
+        }
+
         // Set up search text change listener
         editTextSearch.addTextChangedListener(new android.text.TextWatcher() {
             @Override
@@ -121,7 +129,9 @@ public class HomeFragment extends Fragment implements ItemAdapter.OnItemClickLis
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                performSearch(s.toString());
+                if (viewModel.isSearchMode()) {
+                    viewModel.onSearchTextChanged(s.toString());
+                }
             }
 
             @Override
@@ -134,7 +144,7 @@ public class HomeFragment extends Fragment implements ItemAdapter.OnItemClickLis
             @Override
             public boolean onEditorAction(TextView v, int actionId, KeyEvent event) {
                 if (actionId == android.view.inputmethod.EditorInfo.IME_ACTION_SEARCH) {
-                    performSearch(editTextSearch.getText().toString());
+                    viewModel.search(editTextSearch.getText().toString());
                     hideKeyboard();
                     return true;
                 }
@@ -142,46 +152,99 @@ public class HomeFragment extends Fragment implements ItemAdapter.OnItemClickLis
             }
         });
 
-        // Load items
-        loadItems();
+        // Loads on first use only, a recreated view shows what is already loaded
+        viewModel.start();
 
         return view;
     }
 
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        observeViewModel();
+    }
+
+    private void observeViewModel() {
+        viewModel.getItems().observe(getViewLifecycleOwner(), new Observer<List<Item>>() {
+            @Override
+            public void onChanged(List<Item> items) {
+                if (!items.isEmpty()) {
+                    progressBar.setVisibility(View.GONE);
+                    StartupOrchestrator.getInstance().onFirstContentShown();
+                }
+
+                // Each value is a snapshot, only rows that differ are rebound
+                itemAdapter.submitList(items);
+
+                // A filter can hide most of a page, keep loading until the screen is filled
+                loadMoreIfNeeded();
+            }
+        });
+
+        viewModel.getLoading().observe(getViewLifecycleOwner(), new Observer<Boolean>() {
+            @Override
+            public void onChanged(Boolean loading) {
+                if (loading) {
+                    // Pull to refresh has its own spinner
+                    if (!swipeRefreshLayout.isRefreshing()) {
+                        progressBar.setVisibility(View.VISIBLE);
+                    }
+                } else {
+                    // Ends the cold start even if the feed turns out to be empty
+                    StartupOrchestrator.getInstance().onFirstContentShown();
+                    swipeRefreshLayout.setRefreshing(false);
+                    progressBar.setVisibility(View.GONE);
+                }
+            }
+        });
+
+        viewModel.getEmpty().observe(getViewLifecycleOwner(), new Observer<Boolean>() {
+            @Override
+            public void onChanged(Boolean empty) {
+                textViewEmpty.setVisibility(empty ? View.VISIBLE : View.GONE);
+            }
+        });
+
+        viewModel.getError().observe(getViewLifecycleOwner(), new Observer<String>() {
+            @Override
+            public void onChanged(String message) {
+                if (message != null) {
+                    Toast.makeText(getContext(), "Error: " + message, Toast.LENGTH_SHORT).show();
+                    viewModel.onErrorShown();
+                }
+            }
+        });
+    }
+
     private void setupFilterButtons() {
-        // Initially highlight the "All" button
-        updateFilterButtonsState(FILTER_ALL);
+        // Highlight the selected filter, "All" unless one was picked before
+        updateFilterButtonsState(viewModel.getFilter());
 
         buttonFilterAll.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                if (currentFilter != FILTER_ALL) {
-                    currentFilter = FILTER_ALL;
-                    updateFilterButtonsState(FILTER_ALL);
-                    applyFilter();
-                }
+                switchFilter(HomeViewModel.FILTER_ALL);
             }
         });
 
         buttonFilterLost.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                if (currentFilter != FILTER_LOST) {
-                    currentFilter = FILTER_LOST;
-                    updateFilterButtonsState(FILTER_LOST);
-                    applyFilter();
-                }
+                switchFilter(HomeViewModel.FILTER_LOST);
             }
         });
 
         buttonFilterFound.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                if (currentFilter != FILTER_FOUND) {
-                    currentFilter = FILTER_FOUND;
-                    updateFilterButtonsState(FILTER_FOUND);
-                    applyFilter();
-                }
+                switchFilter(HomeViewModel.FILTER_FOUND);
+            }
+        });
+
+        buttonFilterRecent.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                switchFilter(HomeViewModel.FILTER_RECENT);
             }
         });
     }
@@ -189,155 +252,56 @@ public class HomeFragment extends Fragment implements ItemAdapter.OnItemClickLis
     private void updateFilterButtonsState(int filterType) {
         // Update button appearance based on selected filter
         buttonFilterAll.setBackgroundTintList(
-                filterType == FILTER_ALL ?
+                filterType == HomeViewModel.FILTER_ALL ?
                         getContext().getColorStateList(R.color.colorPrimary) :
                         getContext().getColorStateList(android.R.color.transparent));
         buttonFilterAll.setTextColor(
-                filterType == FILTER_ALL ?
+                filterType == HomeViewModel.FILTER_ALL ?
                         getContext().getColorStateList(android.R.color.white) :
                         getContext().getColorStateList(R.color.colorPrimary));
 
         buttonFilterLost.setBackgroundTintList(
-                filterType == FILTER_LOST ?
+                filterType == HomeViewModel.FILTER_LOST ?
                         getContext().getColorStateList(R.color.statusLost) :
                         getContext().getColorStateList(android.R.color.transparent));
         buttonFilterLost.setTextColor(
-                filterType == FILTER_LOST ?
+                filterType == HomeViewModel.FILTER_LOST ?
                         getContext().getColorStateList(android.R.color.white) :
                         getContext().getColorStateList(R.color.statusLost));
 
         buttonFilterFound.setBackgroundTintList(
-                filterType == FILTER_FOUND ?
+                filterType == HomeViewModel.FILTER_FOUND ?
                         getContext().getColorStateList(R.color.statusFound) :
                         getContext().getColorStateList(android.R.color.transparent));
         buttonFilterFound.setTextColor(
-                filterType == FILTER_FOUND ?
+                filterType == HomeViewModel.FILTER_FOUND ?
                         getContext().getColorStateList(android.R.color.white) :
                         getContext().getColorStateList(R.color.statusFound));
-    }
-
-    private void applyFilter() {
-        // Clear current items
-        itemList.clear();
-
-        // Apply the selected filter
-        switch (currentFilter) {
-            case FILTER_ALL:
-                for (Item item : allItemsList) {
-                    if (item.getStatus_id() != Constants.STATUS_CLAIMED) {
-                        itemList.add(item);
-                    }
-                }
-                break;
-
-            case FILTER_LOST:
-                // Filter for lost items (status_id == Constants.STATUS_LOST)
-                for (Item item : allItemsList) {
-                    if (item.getStatus_id() == Constants.STATUS_LOST) {
-                        itemList.add(item);
-                    }
-                }
-                break;
 
-            case FILTER_FOUND:
-                // Filter for found items (status_id == Constants.STATUS_FOUND)
-                for (Item item : allItemsList) {
-                    if (item.getStatus_id() == Constants.STATUS_FOUND) {
-                        itemList.add(item);
-                    }
-                }
-                break;
-        }
+        buttonFilterRecent.setBackgroundTintList(
+                filterType == HomeViewModel.FILTER_RECENT ?
+                        getContext().getColorStateList(R.color.colorPrimary) :
+                        getContext().getColorStateList(android.R.color.transparent));
+        buttonFilterRecent.setTextColor(
+                filterType == HomeViewModel.FILTER_RECENT ?
+                        getContext().getColorStateList(android.R.color.white) :
+                        getContext().getColorStateList(R.color.colorPrimary));
+    }
 
-        // Update the adapter
-        itemAdapter.notifyDataSetChanged();
+    private void switchFilter(int filter) {
+        updateFilterButtonsState(filter);
+        viewModel.setFilter(filter);
+    }
 
-        // Show empty view if no items after filtering
-        if (itemList.isEmpty()) {
-            textViewEmpty.setVisibility(View.VISIBLE);
-        } else {
-            textViewEmpty.setVisibility(View.GONE);
-        }
+    private void loadMoreIfNeeded() {
+        viewModel.loadMoreIfNeeded(layoutManager.findLastVisibleItemPosition());
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        // Refresh items when fragment resumes
-        if (allItemsList.isEmpty()) {
-            loadItems();
-        } else {
-            // Just apply the current filter to refresh UI
-            applyFilter();
-        }
-    }
-
-    @Override
-    public void onDestroy() {
-        super.onDestroy();
-        // Remove event listener when fragment is destroyed
-        if (itemsValueEventListener != null) {
-            firebaseManager.removeItemsListener(itemsValueEventListener);
-        }
-    }
-
-    private void loadItems() {
-        // Show progress
-        if (!swipeRefreshLayout.isRefreshing()) {
-            progressBar.setVisibility(View.VISIBLE);
-        }
-        textViewEmpty.setVisibility(View.GONE);
-
-        // Get all items from Firebase
-        Log.d(TAG, "Loading items from Firebase");
-
-        // Remove previous listener if exists
-        if (itemsValueEventListener != null) {
-            firebaseManager.removeItemsListener(itemsValueEventListener);
-        }
-
-        itemsValueEventListener = new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                Log.d(TAG, "onDataChange: received " + dataSnapshot.getChildrenCount() + " items");
-
-                swipeRefreshLayout.setRefreshing(false);
-                progressBar.setVisibility(View.GONE);
-
-                // Clear previous data
-                allItemsList.clear();
-
-                // Process data
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    try {
-                        Item item = snapshot.getValue(Item.class);
-                        if (item != null) {
-                            // Set Firebase ID for reference
-                            item.setFirebase_id(snapshot.getKey());
-                            allItemsList.add(item);
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing item: " + snapshot.getKey(), e);
-                    }
-                }
-
-                // Apply the current filter
-                applyFilter();
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.e(TAG, "Database error: " + databaseError.getMessage(), databaseError.toException());
-                swipeRefreshLayout.setRefreshing(false);
-                progressBar.setVisibility(View.GONE);
-                Toast.makeText(getContext(), "Error: " + databaseError.getMessage(), Toast.LENGTH_SHORT).show();
-
-                // Show empty view if error
-                textViewEmpty.setVisibility(View.VISIBLE);
-            }
-        };
-
-        firebaseManager.getAllItems(itemsValueEventListener);
+        // The list stays current while we are away, this only retries a failed first load
+        viewModel.onResume();
     }
 
     @Override
@@ -352,29 +316,36 @@ public class HomeFragment extends Fragment implements ItemAdapter.OnItemClickLis
      * Toggle between search mode and normal mode
      */
     private void toggleSearchMode() {
-        isSearchMode = !isSearchMode;
+        boolean searchMode = !viewModel.isSearchMode();
+        // Clear the box before leaving search mode, so the text watcher ignores it
+        if (!searchMode) {
+            editTextSearch.setText("");
+        }
+        viewModel.setSearchMode(searchMode);
+        showSearchBar(searchMode);
 
-        if (isSearchMode) {
-            // Switch to search mode
-            layoutHeaderContent.setVisibility(View.GONE);
-            searchInputLayout.setVisibility(View.VISIBLE);
+        if (searchMode) {
             editTextSearch.requestFocus();
             showKeyboard(editTextSearch);
+        } else {
+            hideKeyboard();
+        }
+    }
+
+    // Swap the header for the search box, or back
+    private void showSearchBar(boolean show) {
+        if (show) {
+            layoutHeaderContent.setVisibility(View.GONE);
+            searchInputLayout.setVisibility(View.VISIBLE);
 
             // Change search icon to close/back
             buttonSearch.setImageResource(android.R.drawable.ic_menu_close_clear_cancel);
         } else {
-            // Switch back to normal mode
             layoutHeaderContent.setVisibility(View.VISIBLE);
             searchInputLayout.setVisibility(View.GONE);
-            editTextSearch.setText("");
-            hideKeyboard();
 
             // Reset to search icon
             buttonSearch.setImageResource(R.drawable.ic_search);
-
-            // Restore original list (cancel search)
-            applyFilter();
         }
     }
 
@@ -403,46 +374,4 @@ public class HomeFragment extends Fragment implements ItemAdapter.OnItemClickLis
             }
         }
     }
-
-    /**
-     * Perform search on items
-     */
-    private void performSearch(String query) {
-        query = query.toLowerCase().trim();
-
-        // Clear current items
-        itemList.clear();
-
-        if (query.isEmpty()) {
-            // If query is empty, restore the filtered items based on current filter
-            applyFilter();
-            return;
-        }
-
-        // Search through the items from all items list
-        for (Item item : allItemsList) {
-            // Search in title, description, and location
-            if ((item.getTitle() != null && item.getTitle().toLowerCase().contains(query)) ||
-                    (item.getDescription() != null && item.getDescription().toLowerCase().contains(query)) ||
-                    (item.getLocation() != null && item.getLocation().toLowerCase().contains(query))) {
-
-                // Apply current filter to search results
-                if (currentFilter == FILTER_ALL ||
-                        (currentFilter == FILTER_LOST && item.getStatus_id() == Constants.STATUS_LOST) ||
-                        (currentFilter == FILTER_FOUND && item.getStatus_id() == Constants.STATUS_FOUND)) {
-                    itemList.add(item);
-                }
-            }
-        }
-
-        // Update the adapter
-        itemAdapter.notifyDataSetChanged();
-
-        // Show empty view if no items after searching
-        if (itemList.isEmpty()) {
-            textViewEmpty.setVisibility(View.VISIBLE);
-        } else {
-            textViewEmpty.setVisibility(View.GONE);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -18,6 +18,7 @@ import com.example.lostandfoundapp.R;
 import com.example.lostandfoundapp.adapters.ItemsPagerAdapter;
 import com.example.lostandfoundapp.auth.LoginActivity;
 import com.example.lostandfoundapp.firebase.FirebaseManager;
+import com.example.lostandfoundapp.firebase.UserItemsLiveData;
 import com.example.lostandfoundapp.utils.FirebaseSessionManager;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
@@ -69,6 +70,28 @@ public class ProfileFragment extends Fragment {
         return view;
     }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        // A restored tab may start out hidden
+        pauseUserItems(isHidden());
+    }
+
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        pauseUserItems(hidden);
+    }
+
+    // The tab is hidden, not destroyed, when another one is shown, and the
+    // item tabs keep observing; stop the shared listener while it is out of view
+    private void pauseUserItems(boolean paused) {
+        UserItemsLiveData userItems = firebaseManager.getUserItems();
+        if (userItems != null) {
+            userItems.setPaused(paused);
+        }
+    }
+
     private void setupViewPager() {
         // Initialize ViewPager adapter
         pagerAdapter = new ItemsPagerAdapter(this);
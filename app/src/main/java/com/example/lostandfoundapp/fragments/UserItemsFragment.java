@@ -9,19 +9,19 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Observer;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.lostandfoundapp.R;
 import com.example.lostandfoundapp.activities.ItemDetailActivity;
 import com.example.lostandfoundapp.adapters.ItemAdapter;
+import com.example.lostandfoundapp.adapters.ItemViewPool;
 import com.example.lostandfoundapp.firebase.FirebaseManager;
+import com.example.lostandfoundapp.firebase.UserItemsLiveData;
 import com.example.lostandfoundapp.model.Item;
-import com.example.lostandfoundapp.utils.Constants;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -46,67 +46,64 @@ public class UserItemsFragment extends Fragment implements ItemAdapter.OnItemCli
         firebaseManager = FirebaseManager.getInstance();
 
         // Setup RecyclerView
-        recyclerViewItems.setLayoutManager(new LinearLayoutManager(getContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        recyclerViewItems.setLayoutManager(layoutManager);
+        // Rows come from, and go back to, the pool shared with the other lists
+        ItemViewPool viewPool = ItemViewPool.from(getContext());
+        if (viewPool != null) {
+            viewPool.attach(recyclerViewItems, layoutManager);
+        }
         itemList = new ArrayList<>();
-        itemAdapter = new ItemAdapter(getContext(), itemList, this);
+        itemAdapter = new ItemAdapter(getContext(), this);
         recyclerViewItems.setAdapter(itemAdapter);
 
-        loadActiveItems();
-
         return view;
     }
 
-    private void loadActiveItems() {
-        // Show progress through parent fragment
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        observeItems();
+    }
+
+    private void observeItems() {
+        UserItemsLiveData userItems = firebaseManager.getUserItems();
+        if (userItems == null) {
+            return;
+        }
+
+        // Show progress through parent fragment until the network answers
         if (getParentFragment() instanceof ProfileFragment) {
             ((ProfileFragment) getParentFragment()).showProgress(true);
         }
 
         textViewEmpty.setVisibility(View.GONE);
 
-        // Get user items from Firebase that are not claimed
-        firebaseManager.getUserItems(new ValueEventListener() {
+        // Shared with the archive tab, both tabs ride on one Firebase listener
+        // that goes away with this view
+        userItems.observe(getViewLifecycleOwner(), new Observer<UserItemsLiveData.UserItems>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                if (getParentFragment() instanceof ProfileFragment) {
+            public void onChanged(UserItemsLiveData.UserItems items) {
+                if (items.isFromNetwork() && getParentFragment() instanceof ProfileFragment) {
                     ((ProfileFragment) getParentFragment()).showProgress(false);
                 }
+                if (items.getError() != null) {
+                    Toast.makeText(getContext(), "Error: " + items.getError().getMessage(), Toast.LENGTH_SHORT).show();
+                }
 
-                // Clear previous data
                 itemList.clear();
+                itemList.addAll(items.getActiveItems());
 
-                // Process data - only include active items (not claimed)
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    Item item = snapshot.getValue(Item.class);
-                    if (item != null) {
-                        // Set Firebase ID for reference
-                        item.setFirebase_id(snapshot.getKey());
-
-                        // Only add items that are not claimed
-                        if (item.getStatus_id() != Constants.STATUS_CLAIMED) {
-                            itemList.add(item);
-                        }
-                    }
-                }
-
-                // Notify adapter
-                itemAdapter.notifyDataSetChanged();
+                // Hand the adapter a snapshot, it diffs against the previous one
+                itemAdapter.submitList(new ArrayList<>(itemList));
 
-                // Show empty view if no items
-                if (itemList.isEmpty()) {
+                // Show empty view if no items, once the network has confirmed it
+                if (!itemList.isEmpty()) {
+                    textViewEmpty.setVisibility(View.GONE);
+                } else if (items.isFromNetwork()) {
                     textViewEmpty.setVisibility(View.VISIBLE);
                 }
             }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                if (getParentFragment() instanceof ProfileFragment) {
-                    ((ProfileFragment) getParentFragment()).showProgress(false);
-                }
-
-                Toast.makeText(getContext(), "Error: " + databaseError.getMessage(), Toast.LENGTH_SHORT).show();
-                textViewEmpty.setVisibility(View.VISIBLE);
-            }
         });
     }
 
@@ -117,11 +114,4 @@ public class UserItemsFragment extends Fragment implements ItemAdapter.OnItemCli
         intent.putExtra("item_id", item.getFirebase_id());
         startActivity(intent);
     }
-
-    @Override
-    public void onResume() {
-        super.onResume();
-        // Refresh items when fragment resumes
-        loadActiveItems();
-    }
-}
\ No newline at end of file
+}
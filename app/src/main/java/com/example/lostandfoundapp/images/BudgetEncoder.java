@@ -0,0 +1,166 @@
+package com.example.lostandfoundapp.images;
+
+import android.graphics.Bitmap;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes a bitmap as a data URI that fits a stored size budget. For each
+ * candidate size, starting at the largest allowed, it binary searches for
+ * the highest quality that fits; if none does, it shrinks the image and
+ * tries again. Candidate encodes are only counted, never kept, so the search
+ * allocates nothing but the scaled bitmaps.
+ *
+ * WebP is preferred, falling back to JPEG when the device cannot encode it.
+ */
+public final class BudgetEncoder {
+    private static final int MIN_QUALITY = 40;
+    private static final int MAX_QUALITY = 85;
+    private static final int QUALITY_STEP = 5;
+    // Each step down keeps this fraction of the previous longest edge
+    private static final float DIMENSION_STEP = 0.8f;
+
+    // bestQuality results that are not a quality
+    private static final int NO_FIT = -1;
+    private static final int UNSUPPORTED = -2;
+
+    private BudgetEncoder() {
+    }
+
+    /**
+     * Outcome of an encode: the data URI plus the parameters chosen for it
+     */
+    public static final class Result {
+        private final String dataUri;
+        private final String mimeType;
+        private final int width;
+        private final int height;
+        private final int quality;
+        private final int budgetBytes;
+
+        Result(String dataUri, String mimeType, int width, int height, int quality, int budgetBytes) {
+            this.dataUri = dataUri;
+            this.mimeType = mimeType;
+            this.width = width;
+            this.height = height;
+            this.quality = quality;
+            this.budgetBytes = budgetBytes;
+        }
+
+        public String getDataUri() {
+            return dataUri;
+        }
+
+        public int getBytes() {
+            return dataUri.length();
+        }
+
+        public boolean isWithinBudget() {
+            return getBytes() <= budgetBytes;
+        }
+
+        // Parameters and size as stored next to the image, for tuning budgets
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("format", mimeType);
+            map.put("width", width);
+            map.put("height", height);
+            map.put("quality", quality);
+            map.put("bytes", getBytes());
+            map.put("budget", budgetBytes);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return mimeType + " " + width + "x" + height + " q" + quality
+                    + ", " + getBytes() + "/" + budgetBytes + " bytes";
+        }
+    }
+
+    /**
+     * Encode the source no larger than maxDimension on its longest edge and no
+     * smaller than minDimension, within budgetBytes if any candidate fits.
+     * Otherwise the smallest, lowest quality candidate is returned.
+     */
+    public static Result encode(Bitmap source, int maxDimension, int minDimension, int budgetBytes) {
+        Bitmap.CompressFormat format = ImageCodec.webpFormat();
+        int dimension = Math.min(maxDimension, Math.max(source.getWidth(), source.getHeight()));
+
+        while (true) {
+            Bitmap scaled = ImageCodec.scaleToFit(source, dimension);
+            try {
+                int quality = bestQuality(scaled, format, budgetBytes);
+                if (quality == UNSUPPORTED) {
+                    if (format == Bitmap.CompressFormat.JPEG) {
+                        throw new IllegalStateException("Bitmap could not be compressed");
+                    }
+                    // No WebP encoder on this device, search again with JPEG
+                    format = Bitmap.CompressFormat.JPEG;
+                    continue;
+                }
+
+                int nextDimension = Math.round(dimension * DIMENSION_STEP);
+                if (quality != NO_FIT || nextDimension < minDimension) {
+                    int chosen = quality != NO_FIT ? quality : MIN_QUALITY;
+                    String dataUri = ImageCodec.encode(scaled, format, chosen);
+                    return new Result(dataUri, ImageCodec.mimeType(format), scaled.getWidth(), scaled.getHeight(),
+                            chosen, budgetBytes);
+                }
+                dimension = nextDimension;
+            } finally {
+                if (scaled != source) {
+                    scaled.recycle();
+                }
+            }
+        }
+    }
+
+    // Highest quality step whose data URI fits the budget
+    private static int bestQuality(Bitmap bitmap, Bitmap.CompressFormat format, int budgetBytes) {
+        int low = 0;
+        int high = (MAX_QUALITY - MIN_QUALITY) / QUALITY_STEP;
+        int best = NO_FIT;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int quality = MIN_QUALITY + mid * QUALITY_STEP;
+            long size = encodedSize(bitmap, format, quality);
+            if (size < 0) {
+                return UNSUPPORTED;
+            }
+            if (size <= budgetBytes) {
+                best = quality;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return best;
+    }
+
+    // Length of the data URI the bitmap would encode to, -1 if the format is not supported
+    private static long encodedSize(Bitmap bitmap, Bitmap.CompressFormat format, int quality) {
+        CountingOutputStream counter = new CountingOutputStream();
+        if (!bitmap.compress(format, quality, counter)) {
+            return -1;
+        }
+        return ImageCodec.dataUriLength(format, counter.count);
+    }
+
+    // Discards the compressed bytes, keeping only their count
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
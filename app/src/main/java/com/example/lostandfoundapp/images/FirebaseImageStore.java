@@ -0,0 +1,173 @@
+package com.example.lostandfoundapp.images;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.lostandfoundapp.utils.AppLog;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Image store backed by the item_images node of the realtime database.
+ * Each item gets a small thumbnail for list cards and a larger detail
+ * image, stored as separate children so they download separately. Both are
+ * compressed to fit the upload's byte budget, and the parameters chosen are
+ * recorded under a meta child.
+ *
+ * Each upload is a version under item_images/{itemId}/{pushKey}, so a new
+ * picture can be stored, and dropped again, while the item still shows the
+ * old one. Items stored before versions existed keep their variants
+ * directly under item_images/{itemId}.
+ */
+public class FirebaseImageStore implements ImageStore {
+    private static final String TAG = "FirebaseImageStore";
+    private static final String IMAGES_NODE = "item_images";
+
+    // Thumbnail is sized for the 120dp list card, detail for the full screen view.
+    // Below the minimum size a variant is stored over budget rather than shrunk further.
+    private static final int THUMBNAIL_MAX_DIMENSION = 160;
+    private static final int THUMBNAIL_MIN_DIMENSION = 96;
+    private static final int DETAIL_MAX_DIMENSION = 800;
+    private static final int DETAIL_MIN_DIMENSION = 400;
+
+    private final FirebaseDatabase mDatabase;
+    private final DatabaseReference mImagesRef;
+
+    public FirebaseImageStore(FirebaseDatabase database) {
+        mDatabase = database;
+        mImagesRef = database.getReference(IMAGES_NODE);
+    }
+
+    @Override
+    public String getImagesPath(String itemId) {
+        return IMAGES_NODE + "/" + itemId;
+    }
+
+    @Override
+    public void putImages(String itemId, Bitmap source, ImageBudget budget,
+                          final OnCompleteListener<ImageRefs> listener) {
+        final BudgetEncoder.Result thumbnail;
+        final BudgetEncoder.Result detail;
+        try {
+            thumbnail = BudgetEncoder.encode(source, THUMBNAIL_MAX_DIMENSION, THUMBNAIL_MIN_DIMENSION,
+                    budget.getThumbnailBytes());
+            detail = BudgetEncoder.encode(source, DETAIL_MAX_DIMENSION, DETAIL_MIN_DIMENSION,
+                    budget.getDetailBytes());
+        } catch (Exception e) {
+            Log.e(TAG, "Error encoding images for item: " + itemId, e);
+            if (listener != null) {
+                TaskCompletionSource<ImageRefs> tcs = new TaskCompletionSource<>();
+                tcs.setException(e);
+                listener.onComplete(tcs.getTask());
+            }
+            return;
+        }
+
+        AppLog.d(TAG, "Encoded images for item {}, thumbnail: {}, detail: {}", itemId, thumbnail, detail);
+        if (budget.isMetered()) {
+            AppLog.d(TAG, "Encoded images for item {} to the metered budget", itemId);
+        }
+        if (!detail.isWithinBudget()) {
+            Log.w(TAG, "Detail image for item " + itemId + " is over budget at the smallest size");
+        }
+
+        Map<String, Object> meta = new HashMap<>();
+        meta.put(VARIANT_THUMBNAIL, thumbnail.toMap());
+        meta.put(VARIANT_DETAIL, detail.toMap());
+        meta.put("metered", budget.isMetered());
+
+        Map<String, Object> variants = new HashMap<>();
+        variants.put(VARIANT_THUMBNAIL, thumbnail.getDataUri());
+        variants.put(VARIANT_DETAIL, detail.getDataUri());
+        variants.put(META, meta);
+
+        DatabaseReference versionRef = mImagesRef.child(itemId).push();
+        String versionPath = getImagesPath(itemId) + "/" + versionRef.getKey();
+        final ImageRefs refs = new ImageRefs(
+                versionPath + "/" + VARIANT_THUMBNAIL,
+                versionPath + "/" + VARIANT_DETAIL);
+
+        versionRef.updateChildren(variants)
+                .addOnCompleteListener(new OnCompleteListener<Void>() {
+                    @Override
+                    public void onComplete(@NonNull Task<Void> task) {
+                        if (listener == null) {
+                            return;
+                        }
+                        TaskCompletionSource<ImageRefs> tcs = new TaskCompletionSource<>();
+                        if (task.isSuccessful()) {
+                            tcs.setResult(refs);
+                        } else {
+                            tcs.setException(task.getException() != null ?
+                                    task.getException() : new Exception("Failed to save images"));
+                        }
+                        listener.onComplete(tcs.getTask());
+                    }
+                });
+    }
+
+    @Override
+    public void loadImage(String ref, final OnCompleteListener<String> listener) {
+        mDatabase.getReference(ref).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                if (listener != null) {
+                    TaskCompletionSource<String> tcs = new TaskCompletionSource<>();
+                    tcs.setResult(dataSnapshot.getValue(String.class));
+                    listener.onComplete(tcs.getTask());
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                Log.w(TAG, "loadImage:onCancelled " + databaseError.getMessage());
+                if (listener != null) {
+                    TaskCompletionSource<String> tcs = new TaskCompletionSource<>();
+                    tcs.setException(databaseError.toException());
+                    listener.onComplete(tcs.getTask());
+                }
+            }
+        });
+    }
+
+    @Override
+    public List<String> getPaths(ImageRefs refs) {
+        // The variants and the meta next to them; for an unversioned item the
+        // parent also holds newer versions, so it is never removed as a whole
+        List<String> paths = new ArrayList<>();
+        String thumbnailRef = refs.getThumbnailRef();
+        if (thumbnailRef != null) {
+            paths.add(thumbnailRef);
+            paths.add(thumbnailRef.substring(0, thumbnailRef.lastIndexOf('/') + 1) + META);
+        }
+        if (refs.getDetailRef() != null) {
+            paths.add(refs.getDetailRef());
+        }
+        return paths;
+    }
+
+    @Override
+    public void deleteImages(ImageRefs refs, final OnCompleteListener<Void> listener) {
+        Map<String, Object> updates = new HashMap<>();
+        for (String path : getPaths(refs)) {
+            updates.put(path, null);
+        }
+        Task<Void> task = mDatabase.getReference().updateChildren(updates);
+        if (listener != null) {
+            task.addOnCompleteListener(listener);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.lostandfoundapp.images;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.net.ConnectivityManager;
+
+import com.example.lostandfoundapp.R;
+
+/**
+ * Stored size budgets for the variants of one uploaded image. Budgets come
+ * from resources so a deployment can tune them, with smaller ones used while
+ * the device is on a metered network.
+ */
+public final class ImageBudget {
+    private final int thumbnailBytes;
+    private final int detailBytes;
+    private final boolean metered;
+
+    public ImageBudget(int thumbnailBytes, int detailBytes, boolean metered) {
+        this.thumbnailBytes = thumbnailBytes;
+        this.detailBytes = detailBytes;
+        this.metered = metered;
+    }
+
+    /**
+     * Budget for an upload made right now, on whatever network is active
+     */
+    public static ImageBudget forCurrentNetwork(Context context) {
+        ConnectivityManager connectivity =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        // Assume metered when we cannot tell
+        boolean metered = connectivity == null || connectivity.isActiveNetworkMetered();
+
+        Resources resources = context.getResources();
+        if (metered) {
+            return new ImageBudget(
+                    resources.getInteger(R.integer.image_thumbnail_budget_metered_bytes),
+                    resources.getInteger(R.integer.image_detail_budget_metered_bytes),
+                    true);
+        }
+        return new ImageBudget(
+                resources.getInteger(R.integer.image_thumbnail_budget_bytes),
+                resources.getInteger(R.integer.image_detail_budget_bytes),
+                false);
+    }
+
+    public int getThumbnailBytes() {
+        return thumbnailBytes;
+    }
+
+    public int getDetailBytes() {
+        return detailBytes;
+    }
+
+    public boolean isMetered() {
+        return metered;
+    }
+}
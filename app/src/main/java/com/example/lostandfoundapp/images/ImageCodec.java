@@ -0,0 +1,133 @@
+package com.example.lostandfoundapp.images;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import com.example.lostandfoundapp.firebase.FirebaseManager;
+
+/**
+ * Converts bitmaps to and from the data URI strings we keep in the database
+ */
+public final class ImageCodec {
+    public static final String DATA_URI_PREFIX = "data:image";
+
+    // Generous estimate of Base64 output per pixel at our qualities, so the builder rarely grows
+    private static final int PIXELS_PER_ENCODED_CHAR = 3;
+
+    private ImageCodec() {
+    }
+
+    // Check if a stored image string is an inline data URI
+    public static boolean isDataUri(String image) {
+        return image != null && image.startsWith(DATA_URI_PREFIX);
+    }
+
+    // Lossy WebP, using the non-deprecated constant where available
+    @SuppressWarnings("deprecation")
+    public static Bitmap.CompressFormat webpFormat() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return Bitmap.CompressFormat.WEBP_LOSSY;
+        }
+        return Bitmap.CompressFormat.WEBP;
+    }
+
+    // Scale a bitmap down so its longest edge is at most maxDimension
+    public static Bitmap scaleToFit(Bitmap bitmap, int maxDimension) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        if (width <= maxDimension && height <= maxDimension) {
+            return bitmap;
+        }
+
+        float scale = Math.min(
+                (float) maxDimension / width,
+                (float) maxDimension / height);
+        int newWidth = Math.max(1, Math.round(width * scale));
+        int newHeight = Math.max(1, Math.round(height * scale));
+        return Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, true);
+    }
+
+    // Mime type written into the data URI for a compress format
+    public static String mimeType(Bitmap.CompressFormat format) {
+        return format == Bitmap.CompressFormat.JPEG ? "image/jpeg" : "image/webp";
+    }
+
+    // Length of the data URI that encode produces for this many compressed bytes
+    public static long dataUriLength(Bitmap.CompressFormat format, long compressedBytes) {
+        String prefix = "data:" + mimeType(format) + ";base64,";
+        return prefix.length() + (compressedBytes + 2) / 3 * 4;
+    }
+
+    /**
+     * Compress a bitmap and wrap it in a data URI. The compressor writes
+     * straight into the Base64 text, so the compressed bytes are never held
+     * in their own array; the only copy is the final string.
+     */
+    public static String encode(Bitmap bitmap, Bitmap.CompressFormat format, int quality) {
+        String mimeType = mimeType(format);
+        StringBuilder dataUri = new StringBuilder(
+                bitmap.getWidth() * bitmap.getHeight() / PIXELS_PER_ENCODED_CHAR + 32);
+        dataUri.append("data:").append(mimeType).append(";base64,");
+
+        DataUriStreams.Base64Writer writer = new DataUriStreams.Base64Writer(dataUri);
+        bitmap.compress(format, quality, writer);
+        writer.close();
+        return dataUri.toString();
+    }
+
+    // Decode a data URI back into a bitmap at full size, null if it is malformed
+    public static Bitmap decode(String dataUri) {
+        return decode(dataUri, 0, 0);
+    }
+
+    /**
+     * Decode a data URI for display in a view of the given size. The bitmap is
+     * sampled and scaled while decoding so it just covers the target (what
+     * centerCrop needs), and opaque JPEGs use RGB_565. Pass 0 for either
+     * dimension to decode at full size.
+     */
+    public static Bitmap decode(String dataUri, int targetWidth, int targetHeight) {
+        if (!isDataUri(dataUri)) {
+            return null;
+        }
+        // The decoder reads the payload straight out of the string, no byte array in between
+        int payloadStart = DataUriStreams.payloadStart(dataUri);
+        if (payloadStart < 0) {
+            return null;
+        }
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            return BitmapFactory.decodeStream(new DataUriStreams.Base64Reader(dataUri, payloadStart));
+        }
+
+        // Read the dimensions without allocating pixels
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeStream(new DataUriStreams.Base64Reader(dataUri, payloadStart), null, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = FirebaseManager.calculateInSampleSize(options, targetWidth, targetHeight);
+        if ("image/jpeg".equals(options.outMimeType)) {
+            // JPEG has no alpha channel, half the bytes per pixel is enough
+            options.inPreferredConfig = Bitmap.Config.RGB_565;
+        }
+
+        // Power-of-two sampling can leave up to twice the needed size, let the
+        // decoder scale the rest of the way instead of creating a second bitmap
+        int sampledWidth = options.outWidth / options.inSampleSize;
+        int sampledHeight = options.outHeight / options.inSampleSize;
+        float scale = Math.max(
+                (float) targetWidth / sampledWidth,
+                (float) targetHeight / sampledHeight);
+        if (scale < 1f) {
+            options.inScaled = true;
+            options.inDensity = sampledWidth;
+            options.inTargetDensity = Math.max(1, Math.round(sampledWidth * scale));
+        }
+
+        return BitmapFactory.decodeStream(new DataUriStreams.Base64Reader(dataUri, payloadStart), null, options);
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.lostandfoundapp.images;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+
+import com.example.lostandfoundapp.R;
+import com.example.lostandfoundapp.firebase.FirebaseManager;
+import com.example.lostandfoundapp.metrics.LatencyHistogram;
+import com.example.lostandfoundapp.metrics.Metrics;
+import com.example.lostandfoundapp.metrics.Sections;
+import com.example.lostandfoundapp.model.Item;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.squareup.picasso.Picasso;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Shared loader for item images. Decodes on a background executor, keeps
+ * decoded bitmaps in a byte-sized LRU cache keyed by item, variant and
+ * target size, and drops results for views that were rebound meanwhile.
+ */
+public class ImagePipeline {
+    private static final String TAG = "ImagePipeline";
+    private static final String SECTION_DECODE = "ImagePipeline.decode";
+    private static final LatencyHistogram DECODE_TIME = Metrics.histogram("image.decode");
+
+    // Use an eighth of the heap for decoded bitmaps
+    private static final int CACHE_HEAP_FRACTION = 8;
+    private static final int DECODE_THREADS = 2;
+
+    // Singleton instance
+    private static ImagePipeline instance;
+
+    private final LruCache<String, Bitmap> memoryCache;
+    private final ExecutorService decodeExecutor;
+    private final Handler mainHandler;
+    private final ImageStore imageStore;
+
+    private ImagePipeline(ImageStore imageStore) {
+        this.imageStore = imageStore;
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.decodeExecutor = Executors.newFixedThreadPool(DECODE_THREADS);
+
+        int cacheBytes = (int) (Runtime.getRuntime().maxMemory() / CACHE_HEAP_FRACTION);
+        this.memoryCache = new LruCache<String, Bitmap>(cacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    // Get singleton instance
+    public static synchronized ImagePipeline getInstance() {
+        if (instance == null) {
+            instance = new ImagePipeline(FirebaseManager.getInstance().getImageStore());
+        }
+        return instance;
+    }
+
+    /**
+     * Load the list thumbnail of an item into a view
+     */
+    public void loadThumbnail(ImageView view, Item item, int targetWidth, int targetHeight) {
+        load(view, item, ImageStore.VARIANT_THUMBNAIL, item.getThumbnail_ref(), targetWidth, targetHeight);
+    }
+
+    /**
+     * Load the detail image of an item into a view
+     */
+    public void loadDetail(ImageView view, Item item, int targetWidth, int targetHeight) {
+        load(view, item, ImageStore.VARIANT_DETAIL, item.getImage_ref(), targetWidth, targetHeight);
+    }
+
+    /**
+     * Cancel the pending request of a view, e.g. when its ViewHolder is recycled
+     */
+    public void cancel(ImageView view) {
+        Object tag = view.getTag(R.id.tag_image_request);
+        if (tag instanceof Request) {
+            ((Request) tag).cancel();
+        }
+        view.setTag(R.id.tag_image_request, null);
+        Picasso.get().cancelRequest(view);
+    }
+
+    private void load(ImageView view, Item item, String variant, String ref,
+                      int targetWidth, int targetHeight) {
+        cancel(view);
+
+        String inlineImage = item.getImage();
+        if (ref == null && (inlineImage == null || inlineImage.isEmpty())) {
+            view.setImageResource(R.drawable.image_placeholder_background);
+            return;
+        }
+
+        // Legacy items may still hold a plain URL, Picasso handles those
+        if (ref == null && !ImageCodec.isDataUri(inlineImage)) {
+            Picasso.get()
+                    .load(inlineImage)
+                    .placeholder(R.drawable.image_placeholder_background)
+                    .error(R.drawable.image_placeholder_background)
+                    .into(view);
+            return;
+        }
+
+        String key = cacheKey(item, variant, targetWidth, targetHeight);
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            view.setImageBitmap(cached);
+            return;
+        }
+
+        view.setImageResource(R.drawable.image_placeholder_background);
+        Request request = new Request(view, key, targetWidth, targetHeight);
+        view.setTag(R.id.tag_image_request, request);
+
+        if (ref != null) {
+            fetchAndDecode(request, ref);
+        } else {
+            decode(request, inlineImage);
+        }
+    }
+
+    private void fetchAndDecode(final Request request, String ref) {
+        imageStore.loadImage(ref, new OnCompleteListener<String>() {
+            @Override
+            public void onComplete(@NonNull Task<String> task) {
+                if (request.isCancelled()) {
+                    return;
+                }
+                if (task.isSuccessful() && task.getResult() != null) {
+                    decode(request, task.getResult());
+                } else {
+                    Log.w(TAG, "Failed to load image: " + request.key, task.getException());
+                }
+            }
+        });
+    }
+
+    private void decode(final Request request, final String dataUri) {
+        request.future = decodeExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                if (request.isCancelled()) {
+                    return;
+                }
+
+                final Bitmap bitmap;
+                long start = Sections.begin(SECTION_DECODE);
+                try {
+                    bitmap = ImageCodec.decode(dataUri, request.targetWidth, request.targetHeight);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error decoding image: " + request.key, e);
+                    return;
+                } finally {
+                    Sections.end(DECODE_TIME, start);
+                }
+                if (bitmap == null) {
+                    Log.e(TAG, "Failed to decode image: " + request.key);
+                    return;
+                }
+
+                memoryCache.put(request.key, bitmap);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        request.deliver(bitmap);
+                    }
+                });
+            }
+        });
+    }
+
+    private static String cacheKey(Item item, String variant, int targetWidth, int targetHeight) {
+        // Items without an id fall back to the image identity so they still cache safely
+        String id = item.getFirebase_id() != null ?
+                item.getFirebase_id() : String.valueOf(System.identityHashCode(item.getImage()));
+        // updated_at changes on every edit, so a replaced picture never hits a stale entry
+        return id + "@" + item.getUpdated_at() + "/" + variant + "/" + targetWidth + "x" + targetHeight;
+    }
+
+    /**
+     * One pending load for one view. Touched from the main thread and the decode executor.
+     */
+    private static class Request {
+        final ImageView view;
+        final String key;
+        final int targetWidth;
+        final int targetHeight;
+        volatile boolean cancelled;
+        volatile Future<?> future;
+
+        Request(ImageView view, String key, int targetWidth, int targetHeight) {
+            this.view = view;
+            this.key = key;
+            this.targetWidth = targetWidth;
+            this.targetHeight = targetHeight;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        void cancel() {
+            cancelled = true;
+            Future<?> pending = future;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+
+        // Runs on the main thread
+        void deliver(Bitmap bitmap) {
+            if (cancelled || view.getTag(R.id.tag_image_request) != this) {
+                return;
+            }
+            view.setImageBitmap(bitmap);
+            view.setTag(R.id.tag_image_request, null);
+        }
+    }
+}
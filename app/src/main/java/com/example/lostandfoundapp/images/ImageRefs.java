@@ -0,0 +1,22 @@
+package com.example.lostandfoundapp.images;
+
+/**
+ * References to the stored variants of one item image
+ */
+public class ImageRefs {
+    private final String thumbnailRef;
+    private final String detailRef;
+
+    public ImageRefs(String thumbnailRef, String detailRef) {
+        this.thumbnailRef = thumbnailRef;
+        this.detailRef = detailRef;
+    }
+
+    public String getThumbnailRef() {
+        return thumbnailRef;
+    }
+
+    public String getDetailRef() {
+        return detailRef;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.lostandfoundapp.images;
+
+import android.graphics.Bitmap;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+
+import java.util.List;
+
+/**
+ * Stores item pictures outside of the items node. Items only keep the
+ * references returned here, so list queries never carry image bytes.
+ */
+public interface ImageStore {
+    // Variant keys
+    String VARIANT_THUMBNAIL = "thumb";
+    String VARIANT_DETAIL = "detail";
+    // Encoding parameters and sizes of the stored variants
+    String META = "meta";
+
+    /**
+     * Encode and store the thumbnail and detail variants for an item. Every
+     * call stores a new version next to the item's earlier ones, so an
+     * upload never overwrites images an item still points at.
+     * @param itemId The item the images belong to
+     * @param source The decoded picture, not recycled by the store
+     * @param budget Stored size each variant should fit in
+     * @param listener Receives the references to save on the item
+     */
+    void putImages(String itemId, Bitmap source, ImageBudget budget, OnCompleteListener<ImageRefs> listener);
+
+    /**
+     * Load a stored image as a data URI
+     * @param ref A reference previously returned by putImages
+     * @param listener Receives the data URI, or null if nothing is stored
+     */
+    void loadImage(String ref, OnCompleteListener<String> listener);
+
+    /**
+     * Remove the version of an item's images these references point at
+     */
+    void deleteImages(ImageRefs refs, OnCompleteListener<Void> listener);
+
+    /**
+     * Path of all of an item's images, for multi-path updates that delete the item together with them
+     */
+    String getImagesPath(String itemId);
+
+    /**
+     * Paths of one stored version, for multi-path updates that replace it
+     */
+    List<String> getPaths(ImageRefs refs);
+}
@@ -0,0 +1,203 @@
+package com.example.lostandfoundapp.images;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.lostandfoundapp.firebase.FirebaseManager;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Turns a picked image into stored item images without touching the main
+ * thread: opening the Uri, decoding, scaling and encoding all run on the
+ * pipeline's own worker. Only the application context is held, so a
+ * screen that starts an upload can go away while it finishes.
+ *
+ * Every upload returns a handle for cancelling it; progress and the result
+ * are delivered on the main thread.
+ */
+public class ImageUploadPipeline {
+    private static final String TAG = "ImageUploadPipeline";
+
+    // Picked images are sampled down to roughly the largest size we store
+    private static final int MAX_SOURCE_DIMENSION = 800;
+
+    // Progress reported as each stage completes
+    private static final int PROGRESS_DECODED = 40;
+    private static final int PROGRESS_ENCODED = 80;
+    private static final int PROGRESS_DONE = 100;
+
+    /**
+     * Receives upload progress from 0 to 100 on the main thread
+     */
+    public interface ProgressListener {
+        void onProgress(int percent);
+    }
+
+    /**
+     * Handle to a running upload
+     */
+    public static class UploadHandle {
+        private volatile boolean cancelled = false;
+
+        // Stop the upload, and undo it if the images were already stored
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final Context mContext;
+    private final ImageStore mImageStore;
+    private final ExecutorService mExecutor;
+    private final Handler mMainHandler;
+
+    public ImageUploadPipeline(Context context, ImageStore imageStore) {
+        mContext = context.getApplicationContext();
+        mImageStore = imageStore;
+        mExecutor = Executors.newSingleThreadExecutor();
+        mMainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Decode, encode and store the image for an item. A cancelled upload
+     * completes with a cancelled task.
+     */
+    public UploadHandle upload(final String itemId, final Uri imageUri,
+                               @Nullable final ProgressListener progress,
+                               final OnCompleteListener<ImageRefs> listener) {
+        final UploadHandle handle = new UploadHandle();
+        postProgress(handle, progress, 0);
+
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (handle.isCancelled()) {
+                    deliver(listener, Tasks.<ImageRefs>forCanceled());
+                    return;
+                }
+
+                final Bitmap bitmap = decodeSampledBitmap(imageUri);
+                if (bitmap == null) {
+                    Log.e(TAG, "Failed to process image for item: " + itemId);
+                    deliver(listener, Tasks.<ImageRefs>forException(new Exception("Failed to process image")));
+                    return;
+                }
+                if (handle.isCancelled()) {
+                    bitmap.recycle();
+                    deliver(listener, Tasks.<ImageRefs>forCanceled());
+                    return;
+                }
+                postProgress(handle, progress, PROGRESS_DECODED);
+
+                // Encodes on this thread to the budget for the current network, then queues the write
+                mImageStore.putImages(itemId, bitmap, ImageBudget.forCurrentNetwork(mContext), new OnCompleteListener<ImageRefs>() {
+                    @Override
+                    public void onComplete(@NonNull Task<ImageRefs> task) {
+                        bitmap.recycle();
+                        if (handle.isCancelled()) {
+                            if (task.isSuccessful() && task.getResult() != null) {
+                                // Too late to stop the write, remove the version it stored.
+                                // An edited item still points at its earlier version.
+                                mImageStore.deleteImages(task.getResult(), null);
+                            }
+                            deliver(listener, Tasks.<ImageRefs>forCanceled());
+                            return;
+                        }
+                        if (task.isSuccessful()) {
+                            postProgress(handle, progress, PROGRESS_DONE);
+                        }
+                        deliver(listener, task);
+                    }
+                });
+                postProgress(handle, progress, PROGRESS_ENCODED);
+            }
+        });
+        return handle;
+    }
+
+    // Decode a picked image, sampled down to roughly the largest size we store
+    private Bitmap decodeSampledBitmap(Uri uri) {
+        if (uri == null) {
+            Log.e(TAG, "Uri is null");
+            return null;
+        }
+
+        try {
+            InputStream inputStream = mContext.getContentResolver().openInputStream(uri);
+            if (inputStream == null) {
+                Log.e(TAG, "Failed to open input stream for URI: " + uri);
+                return null;
+            }
+
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeStream(inputStream, null, options);
+
+            // Reset stream
+            inputStream.close();
+            inputStream = mContext.getContentResolver().openInputStream(uri);
+            if (inputStream == null) {
+                Log.e(TAG, "Failed to reopen input stream for URI: " + uri);
+                return null;
+            }
+
+            // Calculate inSampleSize
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = FirebaseManager.calculateInSampleSize(options,
+                    MAX_SOURCE_DIMENSION, MAX_SOURCE_DIMENSION);
+
+            Bitmap bitmap = BitmapFactory.decodeStream(inputStream, null, options);
+            inputStream.close();
+
+            if (bitmap == null) {
+                Log.e(TAG, "Failed to decode bitmap from URI: " + uri);
+            }
+            return bitmap;
+        } catch (Exception e) {
+            Log.e(TAG, "Error decoding image from Uri", e);
+            return null;
+        }
+    }
+
+    private void postProgress(final UploadHandle handle, @Nullable final ProgressListener progress,
+                              final int percent) {
+        if (progress == null) {
+            return;
+        }
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!handle.isCancelled()) {
+                    progress.onProgress(percent);
+                }
+            }
+        });
+    }
+
+    // Results always arrive on the main thread, whichever thread produced them
+    private void deliver(final OnCompleteListener<ImageRefs> listener, final Task<ImageRefs> task) {
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                listener.onComplete(task);
+            }
+        });
+    }
+}
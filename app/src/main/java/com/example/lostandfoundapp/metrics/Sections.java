@@ -0,0 +1,27 @@
+package com.example.lostandfoundapp.metrics;
+
+import android.os.Trace;
+
+/**
+ * Timed trace sections. The work between begin and end shows up under its
+ * name in system traces and is recorded into a histogram for the metrics
+ * screen. Sections nest, and end must run on the thread that called begin,
+ * so put it in a finally block.
+ */
+public final class Sections {
+    private Sections() {
+    }
+
+    /**
+     * Start a section, returns the start time to pass to end
+     */
+    public static long begin(String name) {
+        Trace.beginSection(name);
+        return System.nanoTime();
+    }
+
+    public static void end(LatencyHistogram histogram, long startNanos) {
+        histogram.recordSince(startNanos);
+        Trace.endSection();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.lostandfoundapp.startup;
+
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.lostandfoundapp.BuildConfig;
+import com.example.lostandfoundapp.R;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs app startup in timed phases. Only what the first screen needs runs
+ * on the main thread; the rest is deferred to one background thread, in
+ * the order it was handed over. Milestones such as routing out of the
+ * splash are recorded against process start, and in debug builds the
+ * whole timeline is logged against the cold-start budget once the first
+ * content is on screen.
+ */
+public class StartupOrchestrator {
+    private static final String TAG = "Startup";
+
+    private static StartupOrchestrator instance;
+
+    // One timed phase or milestone, in milliseconds since process start
+    private static class Entry {
+        final String name;
+        final String thread;
+        final long start;
+        final long end;
+
+        Entry(String name, String thread, long start, long end) {
+            this.name = name;
+            this.thread = thread;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private final long mProcessStart;
+    private final long mBudgetMs;
+    private final ExecutorService mDeferred;
+    private final List<Entry> mEntries = new ArrayList<>();
+    private boolean mReported = false;
+
+    private StartupOrchestrator(Context context) {
+        // Same clock as Process.getStartUptimeMillis, so time spent before
+        // Application.onCreate counts too
+        mProcessStart = Process.getStartUptimeMillis();
+        mBudgetMs = context.getResources().getInteger(R.integer.cold_start_budget_ms);
+        mDeferred = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Called first thing in the Application
+     */
+    public static synchronized void initialize(Context context) {
+        if (instance == null) {
+            instance = new StartupOrchestrator(context.getApplicationContext());
+        }
+    }
+
+    public static synchronized StartupOrchestrator getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("StartupOrchestrator.initialize() was not called");
+        }
+        return instance;
+    }
+
+    /**
+     * Run work the first screen cannot do without, now, on the calling thread
+     */
+    public void runCritical(String name, Runnable work) {
+        run(name, "main", work);
+    }
+
+    /**
+     * Run work nothing is waiting for on the startup thread, after the
+     * deferred work handed over before it
+     */
+    public void runDeferred(final String name, final Runnable work) {
+        mDeferred.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    StartupOrchestrator.this.run(name, "deferred", work);
+                } catch (RuntimeException e) {
+                    // Nothing is waiting on deferred work, so a failure only costs that phase
+                    Log.e(TAG, "Deferred startup phase " + name + " failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Record that startup reached a point, e.g. the auth state became known
+     */
+    public void mark(String name) {
+        long now = sinceProcessStart();
+        record(new Entry(name, Thread.currentThread().getName(), now, now));
+    }
+
+    /**
+     * Called when the first list content is on screen. Ends the cold start,
+     * later calls are ignored.
+     */
+    public void onFirstContentShown() {
+        long total;
+        List<Entry> entries;
+        synchronized (this) {
+            if (mReported) {
+                return;
+            }
+            mReported = true;
+            total = sinceProcessStart();
+            mEntries.add(new Entry("first_content", "main", total, total));
+            entries = new ArrayList<>(mEntries);
+        }
+
+        if (BuildConfig.DEBUG) {
+            StringBuilder report = new StringBuilder("Cold start ")
+                    .append(total).append(" ms, budget ").append(mBudgetMs).append(" ms");
+            for (Entry entry : entries) {
+                report.append("\n  ").append(entry.name).append(" [").append(entry.thread).append("] ")
+                        .append(entry.start).append(" ms");
+                if (entry.end != entry.start) {
+                    report.append(" +").append(entry.end - entry.start).append(" ms");
+                }
+            }
+            if (total > mBudgetMs) {
+                Log.w(TAG, report.toString());
+            } else {
+                Log.d(TAG, report.toString());
+            }
+        }
+    }
+
+    private void run(String name, String thread, Runnable work) {
+        long start = sinceProcessStart();
+        try {
+            work.run();
+        } finally {
+            record(new Entry(name, thread, start, sinceProcessStart()));
+        }
+    }
+
+    private synchronized void record(Entry entry) {
+        if (!mReported) {
+            mEntries.add(entry);
+        }
+    }
+
+    private long sinceProcessStart() {
+        return SystemClock.uptimeMillis() - mProcessStart;
+    }
+}
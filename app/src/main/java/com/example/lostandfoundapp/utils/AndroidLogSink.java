@@ -0,0 +1,13 @@
+package com.example.lostandfoundapp.utils;
+
+import android.util.Log;
+
+/**
+ * Sends AppLog output to logcat
+ */
+public class AndroidLogSink implements AppLog.Sink {
+    @Override
+    public void log(int level, String tag, String message) {
+        Log.println(level, tag, message);
+    }
+}
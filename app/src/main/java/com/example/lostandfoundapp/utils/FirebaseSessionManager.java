@@ -20,7 +20,14 @@ public class FirebaseSessionManager {
         this.context = context;
         sharedPreferences = context.getSharedPreferences(Constants.PREF_NAME, Context.MODE_PRIVATE);
         editor = sharedPreferences.edit();
-        firebaseManager = FirebaseManager.getInstance();
+    }
+
+    // Created on first use, so the splash screen can check the session without it
+    private FirebaseManager getFirebaseManager() {
+        if (firebaseManager == null) {
+            firebaseManager = FirebaseManager.getInstance();
+        }
+        return firebaseManager;
     }
 
     public void saveAuthUser(User user) {
@@ -32,12 +39,17 @@ public class FirebaseSessionManager {
 
     public boolean isLoggedIn() {
         // Check both Firebase and local storage
-        return firebaseManager.isUserLoggedIn() &&
+        return getFirebaseManager().isUserLoggedIn() &&
                 sharedPreferences.getBoolean(Constants.KEY_IS_LOGGED_IN, false);
     }
 
+    // The same check for a user the caller already has, e.g. from an AuthStateListener
+    public boolean isLoggedIn(FirebaseUser user) {
+        return user != null && sharedPreferences.getBoolean(Constants.KEY_IS_LOGGED_IN, false);
+    }
+
     public String getUserId() {
-        return firebaseManager.getCurrentUserId();
+        return getFirebaseManager().getCurrentUserId();
     }
 
     public String getUserName() {
@@ -49,7 +61,7 @@ public class FirebaseSessionManager {
     }
 
     public void refreshUserData(final OnCompleteListener<User> listener) {
-        firebaseManager.getUserData(new OnCompleteListener<User>() {
+        getFirebaseManager().getUserData(new OnCompleteListener<User>() {
             @Override
             public void onComplete(Task<User> task) {
                 if (task.isSuccessful() && task.getResult() != null) {
@@ -66,7 +78,7 @@ public class FirebaseSessionManager {
 
     public void logout() {
         // Clear Firebase Auth
-        firebaseManager.logoutUser();
+        getFirebaseManager().logoutUser();
 
         // Clear local storage
         editor.clear();
@@ -0,0 +1,497 @@
+package com.example.lostandfoundapp.viewmodels;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModel;
+
+import com.example.lostandfoundapp.database.LocalItemStore;
+import com.example.lostandfoundapp.firebase.FirebaseManager;
+import com.example.lostandfoundapp.firebase.ItemRepository;
+import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.model.ItemOrder;
+import com.example.lostandfoundapp.search.ItemFilter;
+import com.example.lostandfoundapp.search.SearchIndex;
+import com.example.lostandfoundapp.utils.AppLog;
+import com.example.lostandfoundapp.utils.Constants;
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.database.DatabaseError;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * State of the home feed: the loaded pages, the selected filter, the search
+ * and what is on screen. Scoped to MainActivity, so tab switches and
+ * rotations reuse the attached repository and the parsed items instead of
+ * reading and parsing them again; only a refresh goes back to the network.
+ */
+public class HomeViewModel extends ViewModel {
+    private static final String TAG = "HomeViewModel";
+
+    // Filter type constants
+    public static final int FILTER_ALL = 0;
+    public static final int FILTER_LOST = 1;
+    public static final int FILTER_FOUND = 2;
+    // Everything not claimed that was posted in the last RECENT_WINDOW_MS
+    public static final int FILTER_RECENT = 3;
+
+    private static final long RECENT_WINDOW_MS = 7L * 24 * 60 * 60 * 1000;
+
+    // Start loading the next page when this close to the end of the list
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
+    // Wait for a pause in typing before searching
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+
+    private final FirebaseManager firebaseManager;
+    private final LocalItemStore localStore;
+    private ItemRepository itemRepository;
+
+    // What the list shows, as snapshots for the adapter to diff
+    private final MutableLiveData<List<Item>> items = new MutableLiveData<>();
+    // True while the first page of a load is on its way
+    private final MutableLiveData<Boolean> loading = new MutableLiveData<>();
+    private final MutableLiveData<Boolean> empty = new MutableLiveData<>();
+    // Last error message, until the screen has shown it
+    private final MutableLiveData<String> error = new MutableLiveData<>();
+
+    private final List<Item> itemList = new ArrayList<>();
+    private int currentFilter = FILTER_ALL;
+    private boolean isSearchMode = false;
+    private String searchQuery = "";
+
+    // Search runs on a background thread against an index kept in step with the list.
+    // Updates go through the same thread, so the main thread never waits on the index.
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor();
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private Runnable pendingSearch;
+    private Future<?> runningSearch;
+    // Bumped for every new query so results of older ones are dropped
+    private int searchGeneration = 0;
+
+    // The filtered list is read from the local store; deltas that arrive while
+    // that query runs are picked up by running it again
+    private int filterGeneration = 0;
+    private boolean filterQueryPending = false;
+    private boolean filterQueryDirty = false;
+
+    // Receives pages and deltas from whichever repository is current
+    private final ItemRepository.Listener repositoryListener = new ItemRepository.Listener() {
+        @Override
+        public void onItemsLoaded(List<Item> items) {
+            AppLog.d(TAG, "Page loaded: {} items loaded", items.size());
+            // The repository keeps changing its list on this thread, index a copy
+            final List<Item> indexed = new ArrayList<>(items);
+            updateIndex(new Runnable() {
+                @Override
+                public void run() {
+                    searchIndex.rebuild(indexed);
+                }
+            });
+            loading.setValue(false);
+
+            // Apply the current filter, or the search if one is active
+            if (isSearchMode) {
+                performSearch(searchQuery);
+            } else {
+                applyFilter();
+            }
+        }
+
+        @Override
+        public void onItemAdded(Item item) {
+            indexItem(item);
+            applyItemDelta(item, false);
+        }
+
+        @Override
+        public void onItemChanged(Item item) {
+            indexItem(item);
+            applyItemDelta(item, false);
+        }
+
+        @Override
+        public void onItemRemoved(final Item item) {
+            updateIndex(new Runnable() {
+                @Override
+                public void run() {
+                    searchIndex.remove(item.getFirebase_id());
+                }
+            });
+            applyItemDelta(item, true);
+        }
+
+        @Override
+        public void onError(DatabaseError databaseError) {
+            Log.e(TAG, "Database error: " + databaseError.getMessage(), databaseError.toException());
+            loading.setValue(false);
+            error.setValue(databaseError.getMessage());
+
+            // Show empty view if error
+            if (itemList.isEmpty()) {
+                empty.setValue(true);
+            }
+        }
+    };
+
+    public HomeViewModel() {
+        firebaseManager = FirebaseManager.getInstance();
+        localStore = firebaseManager.getLocalStore();
+    }
+
+    public LiveData<List<Item>> getItems() {
+        return items;
+    }
+
+    public LiveData<Boolean> getLoading() {
+        return loading;
+    }
+
+    public LiveData<Boolean> getEmpty() {
+        return empty;
+    }
+
+    public LiveData<String> getError() {
+        return error;
+    }
+
+    public void onErrorShown() {
+        error.setValue(null);
+    }
+
+    public int getFilter() {
+        return currentFilter;
+    }
+
+    public boolean isSearchMode() {
+        return isSearchMode;
+    }
+
+    public String getSearchQuery() {
+        return searchQuery;
+    }
+
+    /**
+     * Load the feed the first time a screen asks for it. Does nothing once
+     * it is loaded or loading, so a recreated screen just shows what is here.
+     */
+    public void start() {
+        if (itemRepository == null) {
+            loadItems();
+        }
+    }
+
+    /**
+     * The screen came back to the foreground. The repository's listeners keep
+     * the list current meanwhile, so this only retries a load that failed.
+     * A filter or search that matches nothing is loaded all the same.
+     */
+    public void onResume() {
+        if (itemRepository == null || (!itemRepository.isLoaded() && !itemRepository.isLoading())) {
+            loadItems();
+        }
+    }
+
+    // Start over from the newest page, e.g. on pull to refresh
+    public void refresh() {
+        loadItems();
+    }
+
+    /**
+     * Show another status, or the last week. Each filter is its own server-side
+     * query, so the current one is detached and the new one loaded from disk,
+     * then the network.
+     */
+    public void setFilter(int filter) {
+        if (currentFilter == filter) {
+            return;
+        }
+        currentFilter = filter;
+
+        if (itemRepository != null) {
+            itemRepository.detach();
+            itemRepository = null;
+        }
+        itemList.clear();
+        loadItems();
+    }
+
+    /**
+     * Enter or leave search mode. Leaving it clears the query and goes back
+     * to the filtered list.
+     */
+    public void setSearchMode(boolean searchMode) {
+        if (isSearchMode == searchMode) {
+            return;
+        }
+        isSearchMode = searchMode;
+        if (!searchMode) {
+            searchQuery = "";
+            cancelSearch();
+            // Restore original list (cancel search)
+            applyFilter();
+        }
+    }
+
+    /**
+     * Search once the user stops typing
+     */
+    public void onSearchTextChanged(final String query) {
+        searchQuery = query;
+        cancelSearch();
+        pendingSearch = new Runnable() {
+            @Override
+            public void run() {
+                pendingSearch = null;
+                performSearch(query);
+            }
+        };
+        searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+    }
+
+    // Search right away, e.g. on the keyboard's search action
+    public void search(String query) {
+        searchQuery = query;
+        performSearch(query);
+    }
+
+    /**
+     * Load the next page if the list is scrolled, or filtered, close to its end
+     * @param lastVisible Adapter position of the last visible row
+     */
+    public void loadMoreIfNeeded(int lastVisible) {
+        if (itemRepository == null || itemRepository.isLoading() || !itemRepository.hasMore() || isSearchMode) {
+            return;
+        }
+        if (lastVisible >= itemList.size() - LOAD_MORE_THRESHOLD) {
+            AppLog.d(TAG, "Near the end of the list, loading next page");
+            itemRepository.loadNextPage();
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        cancelSearch();
+        searchExecutor.shutdownNow();
+
+        // Remove range listeners when the activity is finished for good
+        if (itemRepository != null) {
+            itemRepository.detach();
+        }
+    }
+
+    private void loadItems() {
+        loading.setValue(true);
+        empty.setValue(false);
+
+        AppLog.d(TAG, "Loading first page of items from Firebase");
+
+        if (itemRepository == null) {
+            // Only items with the selected status, or from the last week, are transferred
+            if (currentFilter == FILTER_RECENT) {
+                itemRepository = firebaseManager.createRecentItemRepository(
+                        System.currentTimeMillis() - RECENT_WINDOW_MS, Constants.ITEMS_PAGE_SIZE,
+                        repositoryListener);
+            } else {
+                itemRepository = firebaseManager.createItemRepository(statusForFilter(), Constants.ITEMS_PAGE_SIZE,
+                        repositoryListener);
+            }
+        }
+
+        // Show what is on disk right away, then start over from the newest page
+        if (itemList.isEmpty()) {
+            applyFilter();
+        }
+        itemRepository.refresh();
+    }
+
+    // Status the repository should query for the selected filter
+    private int statusForFilter() {
+        switch (currentFilter) {
+            case FILTER_LOST:
+                return Constants.STATUS_LOST;
+            case FILTER_FOUND:
+                return Constants.STATUS_FOUND;
+            case FILTER_ALL:
+            case FILTER_RECENT:
+            default:
+                return Constants.STATUS_ACTIVE;
+        }
+    }
+
+    // Check if an item belongs in the list under the selected filter
+    private boolean matchesFilter(Item item) {
+        return ItemFilter.matches(statusForFilter(), item);
+    }
+
+    private void applyFilter() {
+        final int generation = ++filterGeneration;
+        filterQueryDirty = false;
+        if (itemRepository == null) {
+            // Nothing loaded yet, loadItems reads the disk when it starts
+            filterQueryPending = false;
+            return;
+        }
+        filterQueryPending = true;
+
+        // The selected filter as an indexed query over the same range as the
+        // loaded pages; before the first page arrives this shows the newest page from disk
+        itemRepository.loadFromDisk().addOnCompleteListener(new OnCompleteListener<List<Item>>() {
+            @Override
+            public void onComplete(@NonNull Task<List<Item>> task) {
+                // A newer filter or search replaced this one
+                if (generation != filterGeneration) {
+                    return;
+                }
+                filterQueryPending = false;
+                if (filterQueryDirty) {
+                    applyFilter();
+                    return;
+                }
+                if (!task.isSuccessful()) {
+                    Log.e(TAG, "Error reading items from the local store", task.getException());
+                    return;
+                }
+
+                itemList.clear();
+                itemList.addAll(task.getResult());
+                publish();
+            }
+        });
+    }
+
+    /**
+     * Apply one remote change to the visible list; the adapter's diff turns it
+     * into a single insert, change or remove
+     */
+    private void applyItemDelta(Item item, boolean removed) {
+        if (isSearchMode) {
+            // Search results are recomputed as a whole
+            performSearch(searchQuery);
+            return;
+        }
+        if (filterQueryPending) {
+            // The running query may have missed this change, it will run again
+            filterQueryDirty = true;
+            return;
+        }
+
+        // The repository's order; the fields it sorts by don't change
+        Comparator<Item> order = itemRepository.getOrder();
+        int position = ItemOrder.indexOf(itemList, item, order);
+        boolean visible = !removed && matchesFilter(item);
+
+        if (position >= 0 && visible) {
+            itemList.set(position, item);
+        } else if (position >= 0) {
+            itemList.remove(position);
+        } else if (visible) {
+            position = ItemOrder.insertionIndex(itemList, item, order);
+            itemList.add(position, item);
+        } else {
+            // Not shown before or after the change
+            return;
+        }
+        publish();
+    }
+
+    // Hand the screen a snapshot of the filtered list, only rows that differ are rebound
+    private void publish() {
+        items.setValue(new ArrayList<>(itemList));
+        // Empty only once there is nothing more to load
+        empty.setValue(itemList.isEmpty() && itemRepository != null && !itemRepository.hasMore());
+    }
+
+    private void indexItem(final Item item) {
+        updateIndex(new Runnable() {
+            @Override
+            public void run() {
+                searchIndex.put(item);
+            }
+        });
+    }
+
+    /**
+     * Change the search index on the search thread. The executor runs in
+     * order, so a search submitted later always sees the change.
+     */
+    private void updateIndex(Runnable update) {
+        if (!searchExecutor.isShutdown()) {
+            searchExecutor.execute(update);
+        }
+    }
+
+    /**
+     * Drop any waiting or running search
+     */
+    private void cancelSearch() {
+        searchGeneration++;
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+        if (runningSearch != null) {
+            runningSearch.cancel(true);
+            runningSearch = null;
+        }
+    }
+
+    /**
+     * Perform search on items
+     */
+    private void performSearch(final String query) {
+        cancelSearch();
+
+        if (query.trim().isEmpty()) {
+            // If query is empty, restore the filtered items based on current filter
+            applyFilter();
+            return;
+        }
+
+        // Query the index off the main thread, results come back ranked
+        final int generation = searchGeneration;
+        runningSearch = searchExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final List<Item> results = searchIndex.search(query);
+                searchHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // A newer query or leaving search mode makes these stale
+                        if (generation != searchGeneration || !isSearchMode) {
+                            return;
+                        }
+                        showSearchResults(results);
+                    }
+                });
+            }
+        });
+    }
+
+    private void showSearchResults(List<Item> results) {
+        runningSearch = null;
+        // Search results win over a filter query still in flight
+        filterGeneration++;
+        filterQueryPending = false;
+        itemList.clear();
+
+        // Apply current filter to search results
+        itemList.addAll(ItemFilter.filter(statusForFilter(), results));
+
+        items.setValue(new ArrayList<>(itemList));
+        // Show empty view if no items after searching
+        empty.setValue(itemList.isEmpty());
+    }
+}
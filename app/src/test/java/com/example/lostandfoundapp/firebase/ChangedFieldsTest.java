@@ -0,0 +1,61 @@
+package com.example.lostandfoundapp.firebase;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ChangedFieldsTest {
+
+    @Test
+    public void unchangedFieldsAreLeftOut() {
+        Map<String, Object> before = fields("title", "Wallet", "location", "Library");
+        Map<String, Object> after = fields("title", "Wallet", "location", "Cafeteria");
+
+        Map<String, Object> changes = FirebaseManager.changedFields(before, after);
+
+        assertEquals(1, changes.size());
+        assertEquals("Cafeteria", changes.get("location"));
+    }
+
+    @Test
+    public void removedFieldsAreWrittenAsNull() {
+        Map<String, Object> before = fields("title", "Wallet", "image", "data:image/jpeg;base64,AAAA");
+        Map<String, Object> after = fields("title", "Wallet");
+
+        Map<String, Object> changes = FirebaseManager.changedFields(before, after);
+
+        assertEquals(1, changes.size());
+        assertTrue(changes.containsKey("image"));
+        assertNull(changes.get("image"));
+    }
+
+    @Test
+    public void addedFieldsAreWritten() {
+        Map<String, Object> before = fields("title", "Wallet");
+        Map<String, Object> after = fields("title", "Wallet", "thumbnail_ref", "item_images/a/b/thumb");
+
+        Map<String, Object> changes = FirebaseManager.changedFields(before, after);
+
+        assertEquals(1, changes.size());
+        assertEquals("item_images/a/b/thumb", changes.get("thumbnail_ref"));
+    }
+
+    @Test
+    public void fieldsAbsentOnBothSidesAreLeftOut() {
+        Map<String, Object> before = fields("title", "Wallet", "image", null);
+        Map<String, Object> after = fields("title", "Wallet");
+
+        assertTrue(FirebaseManager.changedFields(before, after).isEmpty());
+    }
+
+    private static Map<String, Object> fields(Object... keysAndValues) {
+        Map<String, Object> fields = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            fields.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return fields;
+    }
+}
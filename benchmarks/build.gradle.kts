@@ -0,0 +1,27 @@
+// JMH benchmarks for the hot paths in :core. Run with ./gradlew :benchmarks:jmh,
+// then compare build/results/jmh/results.json with baseline/results.json.
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    jmh(project(":core"))
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(2)
+    iterations.set(3)
+    timeOnIteration.set("1s")
+    warmup.set("1s")
+    fork.set(1)
+    // Allocation rate per operation next to the throughput
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
@@ -0,0 +1,72 @@
+package com.example.lostandfoundapp.benchmarks;
+
+import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.utils.AppLog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * Binding a screen's worth of rows, as ItemAdapter does while scrolling,
+ * with the bind log removed, on AppLog with debug logging off (a release
+ * build), and built eagerly the way Log.d calls were, where the message is
+ * concatenated whether or not logcat keeps it. The Blackhole stands in for
+ * the view setters and for the message crossing into Log.
+ */
+@State(Scope.Benchmark)
+public class BindLoggingBenchmark {
+    private static final String TAG = "ItemAdapter";
+    // Rows bound per operation, about one fling
+    private static final int ROWS = 500;
+
+    private List<Item> items;
+
+    @Setup
+    public void setUp() {
+        items = SyntheticItems.items(ROWS);
+        AppLog.install(new AppLog.Sink() {
+            @Override
+            public void log(int level, String tag, String message) {
+                throw new AssertionError("Debug logging is off");
+            }
+        }, AppLog.WARN);
+    }
+
+    @Benchmark
+    public void noLogging(Blackhole blackhole) {
+        for (int position = 0; position < ROWS; position++) {
+            bind(items.get(position), blackhole);
+        }
+    }
+
+    @Benchmark
+    public void appLogDisabled(Blackhole blackhole) {
+        for (int position = 0; position < ROWS; position++) {
+            Item item = items.get(position);
+            AppLog.d(TAG, "Binding item at position {}: {}", position, item.getTitle());
+            bind(item, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void concatenated(Blackhole blackhole) {
+        for (int position = 0; position < ROWS; position++) {
+            Item item = items.get(position);
+            blackhole.consume("Binding item at position " + position + ": " + item.getTitle());
+            bind(item, blackhole);
+        }
+    }
+
+    private static void bind(Item item, Blackhole blackhole) {
+        blackhole.consume(item.getTitle());
+        blackhole.consume(item.getDescription());
+        blackhole.consume(item.getLocation());
+        blackhole.consume(item.getStatus_id());
+        blackhole.consume(item.getThumbnail_ref());
+    }
+}
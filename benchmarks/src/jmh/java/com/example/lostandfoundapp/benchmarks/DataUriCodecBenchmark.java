@@ -0,0 +1,79 @@
+package com.example.lostandfoundapp.benchmarks;
+
+import com.example.lostandfoundapp.images.DataUriStreams;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Base64 side of the data URI image codec, streaming against the old
+ * buffer-copy-concatenate path. BitmapFactory is Android-only, so the
+ * decode side drains the stream through the 16 KB buffer it would use.
+ */
+@State(Scope.Benchmark)
+public class DataUriCodecBenchmark {
+    private static final String PREFIX = "data:image/jpeg;base64,";
+    private static final int COMPRESSOR_CHUNK = 4096;
+    private static final int DECODER_BUFFER = 16 * 1024;
+
+    // A list thumbnail and an 800x600 detail image
+    @Param({"6144", "92160"})
+    public int imageBytes;
+
+    private byte[] image;
+    private String dataUri;
+    private byte[] decoderBuffer;
+
+    @Setup
+    public void setUp() {
+        image = new byte[imageBytes];
+        new Random(imageBytes).nextBytes(image);
+        dataUri = PREFIX + Base64.getEncoder().encodeToString(image);
+        decoderBuffer = new byte[DECODER_BUFFER];
+    }
+
+    @Benchmark
+    public String encodeLegacy() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (int offset = 0; offset < image.length; offset += COMPRESSOR_CHUNK) {
+            outputStream.write(image, offset, Math.min(COMPRESSOR_CHUNK, image.length - offset));
+        }
+        return PREFIX + Base64.getEncoder().encodeToString(outputStream.toByteArray());
+    }
+
+    @Benchmark
+    public String encodeStreaming() {
+        StringBuilder builder = new StringBuilder(imageBytes * 4 / 3 + PREFIX.length() + 4);
+        builder.append(PREFIX);
+        DataUriStreams.Base64Writer writer = new DataUriStreams.Base64Writer(builder);
+        for (int offset = 0; offset < image.length; offset += COMPRESSOR_CHUNK) {
+            writer.write(image, offset, Math.min(COMPRESSOR_CHUNK, image.length - offset));
+        }
+        writer.close();
+        return builder.toString();
+    }
+
+    @Benchmark
+    public byte[] decodeLegacy() {
+        return Base64.getMimeDecoder().decode(dataUri.substring(dataUri.indexOf(",") + 1));
+    }
+
+    @Benchmark
+    public int decodeStreaming() {
+        DataUriStreams.Base64Reader reader =
+                new DataUriStreams.Base64Reader(dataUri, DataUriStreams.payloadStart(dataUri));
+        int total = 0;
+        int read;
+        while ((read = reader.read(decoderBuffer, 0, decoderBuffer.length)) > 0) {
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.lostandfoundapp.benchmarks;
+
+import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.search.ItemFilter;
+import com.example.lostandfoundapp.utils.Constants;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Status filtering of a loaded list, as the home list does for search
+ * results and live changes
+ */
+@State(Scope.Benchmark)
+public class ItemFilterBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    public int itemCount;
+
+    private List<Item> items;
+
+    @Setup
+    public void setUp() {
+        items = SyntheticItems.items(itemCount);
+    }
+
+    @Benchmark
+    public List<Item> filterActive() {
+        return ItemFilter.filter(Constants.STATUS_ACTIVE, items);
+    }
+
+    @Benchmark
+    public List<Item> filterLost() {
+        return ItemFilter.filter(Constants.STATUS_LOST, items);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.lostandfoundapp.benchmarks;
+
+import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.model.ItemMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot to Item mapping. DataSnapshot.getValue(Item.class) needs the
+ * Firebase runtime, so reflective maps the same field maps the way its bean
+ * mapper does: setters found once per class, then looked up by name,
+ * converted and invoked reflectively for every field of every item.
+ * handWritten is ItemMapper, which the app uses instead. 5000 is about a
+ * full feed sync.
+ */
+@State(Scope.Benchmark)
+public class ItemMappingBenchmark {
+    @Param({"100", "1000", "5000", "10000", "100000"})
+    public int itemCount;
+
+    private List<Map<String, Object>> snapshots;
+    private List<String> keys;
+    private Map<String, Method> setters;
+
+    @Setup
+    public void setUp() {
+        snapshots = SyntheticItems.snapshots(itemCount);
+        keys = new ArrayList<>(itemCount);
+        for (Item item : SyntheticItems.items(itemCount)) {
+            keys.add(item.getFirebase_id());
+        }
+        setters = new HashMap<>();
+        for (Method method : Item.class.getMethods()) {
+            if (method.getName().startsWith("set") && method.getParameterTypes().length == 1) {
+                String property = method.getName().substring(3);
+                setters.put(Character.toLowerCase(property.charAt(0)) + property.substring(1), method);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Item> reflective() throws Exception {
+        List<Item> items = new ArrayList<>(snapshots.size());
+        for (Map<String, Object> snapshot : snapshots) {
+            Item item = Item.class.getDeclaredConstructor().newInstance();
+            for (Map.Entry<String, Object> field : snapshot.entrySet()) {
+                Method setter = setters.get(field.getKey());
+                if (setter == null) {
+                    continue;
+                }
+                Object value = field.getValue();
+                if (setter.getParameterTypes()[0] == int.class && value instanceof Long) {
+                    value = ((Long) value).intValue();
+                }
+                setter.invoke(item, value);
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    @Benchmark
+    public List<Item> handWritten() {
+        List<Item> items = new ArrayList<>(snapshots.size());
+        int index = 0;
+        for (Map<String, Object> snapshot : snapshots) {
+            items.add(ItemMapper.fromValue(keys.get(index++), snapshot));
+        }
+        return items;
+    }
+}
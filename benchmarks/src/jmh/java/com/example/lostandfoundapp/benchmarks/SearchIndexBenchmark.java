@@ -0,0 +1,56 @@
+package com.example.lostandfoundapp.benchmarks;
+
+import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.search.SearchIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Home list search: building the index for a feed, refreshing it with the
+ * same items, and queries that take the trigram path and the short-term scan
+ */
+@State(Scope.Benchmark)
+public class SearchIndexBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    public int itemCount;
+
+    private List<Item> items;
+    private SearchIndex index;
+
+    @Setup
+    public void setUp() {
+        items = SyntheticItems.items(itemCount);
+        index = new SearchIndex();
+        index.rebuild(items);
+    }
+
+    @Benchmark
+    public SearchIndex rebuild() {
+        SearchIndex fresh = new SearchIndex();
+        fresh.rebuild(items);
+        return fresh;
+    }
+
+    // A page reload that brings back items already indexed
+    @Benchmark
+    public SearchIndex rebuildUnchanged() {
+        index.rebuild(items);
+        return index;
+    }
+
+    @Benchmark
+    public List<Item> searchTwoWords() {
+        return index.search("blue wallet");
+    }
+
+    @Benchmark
+    public List<Item> searchShortTerm() {
+        return index.search("ke");
+    }
+}
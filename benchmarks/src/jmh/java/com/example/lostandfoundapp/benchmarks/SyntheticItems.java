@@ -0,0 +1,92 @@
+package com.example.lostandfoundapp.benchmarks;
+
+import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic items that look like a campus lost and found feed
+ */
+final class SyntheticItems {
+    private static final String[] COLORS = {
+            "black", "blue", "red", "green", "grey", "white", "brown", "pink", "silver", "caf\u00e9"
+    };
+    private static final String[] THINGS = {
+            "wallet", "backpack", "umbrella", "water bottle", "phone", "laptop charger",
+            "keys", "student card", "jacket", "headphones", "notebook", "calculator"
+    };
+    private static final String[] PLACES = {
+            "Library 2nd floor", "Cafeteria", "Engineering building", "Gym locker room",
+            "Bus stop A", "Lecture hall 101", "Student center", "Parking lot B"
+    };
+    private static final String[] WORDS = {
+            "left", "near", "the", "entrance", "on", "a", "table", "with", "sticker",
+            "small", "scratch", "inside", "pocket", "found", "after", "class", "evening"
+    };
+
+    private SyntheticItems() {
+    }
+
+    static List<Item> items(int count) {
+        Random random = new Random(count);
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(item(i, random));
+        }
+        return items;
+    }
+
+    // The same items as Firebase hands them over, numbers as Long
+    static List<Map<String, Object>> snapshots(int count) {
+        List<Map<String, Object>> snapshots = new ArrayList<>(count);
+        for (Item item : items(count)) {
+            Map<String, Object> map = item.toMap();
+            map.put("status_id", (long) item.getStatus_id());
+            // Firebase leaves out null fields
+            map.values().removeAll(Collections.singleton(null));
+            snapshots.add(map);
+        }
+        return snapshots;
+    }
+
+    private static Item item(int index, Random random) {
+        Item item = new Item();
+        // Zero-padded so keys sort chronologically, like push keys
+        item.setFirebase_id(String.format("-N%08d", index));
+        item.setUser_id("user" + random.nextInt(500));
+        item.setTitle(capitalize(pick(COLORS, random)) + " " + pick(THINGS, random));
+        item.setLocation(pick(PLACES, random));
+        StringBuilder description = new StringBuilder();
+        int words = 8 + random.nextInt(12);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                description.append(' ');
+            }
+            description.append(pick(WORDS, random));
+        }
+        item.setDescription(description.toString());
+        item.setStatus_id(Constants.STATUS_LOST + random.nextInt(3));
+        item.setContact_name("Contact " + index);
+        item.setContact_phone("555-" + (1000 + random.nextInt(9000)));
+        item.setContact_email("contact" + index + "@example.edu");
+        item.setThumbnail_ref("item_images/" + item.getFirebase_id() + "/thumb");
+        item.setImage_ref("item_images/" + item.getFirebase_id() + "/detail");
+        // Mon Oct 14 10:15:30 GMT 2024, one minute apart
+        item.setCreated_at(1728900930000L + index * 60000L);
+        item.setUpdated_at(item.getCreated_at());
+        return item;
+    }
+
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
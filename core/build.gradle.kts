@@ -0,0 +1,13 @@
+// Android-free models and logic of the app, so they can be unit tested and benchmarked on the JVM
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
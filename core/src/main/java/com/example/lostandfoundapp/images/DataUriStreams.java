@@ -0,0 +1,225 @@
+package com.example.lostandfoundapp.images;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Streams between image bytes and the Base64 payload of a data URI.
+ *
+ * The writer encodes bytes straight into a StringBuilder as the compressor
+ * produces them, and the reader decodes the payload of a string on demand,
+ * so neither side ever holds the raw image bytes or a copy of the Base64
+ * text in a separate array.
+ */
+public final class DataUriStreams {
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    // Character value lookup: 0-63 for Base64 digits, PADDING for '=', SKIP otherwise
+    private static final int SKIP = -1;
+    private static final int PADDING = -2;
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < VALUES.length; i++) {
+            VALUES[i] = SKIP;
+        }
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = (byte) i;
+        }
+        VALUES['='] = PADDING;
+    }
+
+    private DataUriStreams() {
+    }
+
+    /**
+     * Index of the first payload character of a data URI, -1 if there is no payload separator
+     */
+    public static int payloadStart(CharSequence dataUri) {
+        for (int i = 0; i < dataUri.length(); i++) {
+            if (dataUri.charAt(i) == ',') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Base64-encodes everything written to it onto the end of a StringBuilder.
+     * Close it to write the final padding.
+     */
+    public static final class Base64Writer extends OutputStream {
+        private final StringBuilder out;
+        // Up to two bytes waiting for the rest of their group of three
+        private int pending;
+        private int pendingCount;
+        private boolean closed;
+
+        public Base64Writer(StringBuilder out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) {
+            pending = (pending << 8) | (b & 0xff);
+            if (++pendingCount == 3) {
+                appendGroup(pending);
+                pending = 0;
+                pendingCount = 0;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            int end = off + len;
+            // Complete a group left over from the previous write
+            while (pendingCount != 0 && off < end) {
+                write(b[off++]);
+            }
+            // Whole groups go straight from the array to the builder
+            while (end - off >= 3) {
+                appendGroup(((b[off] & 0xff) << 16) | ((b[off + 1] & 0xff) << 8) | (b[off + 2] & 0xff));
+                off += 3;
+            }
+            while (off < end) {
+                write(b[off++]);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (pendingCount == 1) {
+                int group = pending << 16;
+                out.append(ALPHABET[(group >> 18) & 0x3f])
+                        .append(ALPHABET[(group >> 12) & 0x3f])
+                        .append("==");
+            } else if (pendingCount == 2) {
+                int group = pending << 8;
+                out.append(ALPHABET[(group >> 18) & 0x3f])
+                        .append(ALPHABET[(group >> 12) & 0x3f])
+                        .append(ALPHABET[(group >> 6) & 0x3f])
+                        .append('=');
+            }
+            pending = 0;
+            pendingCount = 0;
+        }
+
+        private void appendGroup(int group) {
+            out.append(ALPHABET[(group >> 18) & 0x3f])
+                    .append(ALPHABET[(group >> 12) & 0x3f])
+                    .append(ALPHABET[(group >> 6) & 0x3f])
+                    .append(ALPHABET[group & 0x3f]);
+        }
+    }
+
+    /**
+     * Reads the bytes of a Base64 payload straight out of a string. Line
+     * breaks and other non-Base64 characters are skipped, and the stream ends
+     * at the first padding character. Supports mark and reset, so decoders can
+     * sniff the header and rewind.
+     */
+    public static final class Base64Reader extends InputStream {
+        private final CharSequence in;
+        private final int end;
+        private int position;
+        // Decoded bits not yet returned, at most 13
+        private int bits;
+        private int bitCount;
+
+        private int markPosition;
+        private int markBits;
+        private int markBitCount;
+
+        public Base64Reader(CharSequence in, int start) {
+            this(in, start, in.length());
+        }
+
+        public Base64Reader(CharSequence in, int start, int end) {
+            this.in = in;
+            this.position = start;
+            this.end = end;
+            this.markPosition = start;
+        }
+
+        @Override
+        public int read() {
+            while (bitCount < 8) {
+                if (position >= end) {
+                    return -1;
+                }
+                char c = in.charAt(position++);
+                int value = c < VALUES.length ? VALUES[c] : SKIP;
+                if (value == PADDING) {
+                    // Whatever bits are left are padding
+                    position = end;
+                    bitCount = 0;
+                    return -1;
+                }
+                if (value == SKIP) {
+                    continue;
+                }
+                bits = (bits << 6) | value;
+                bitCount += 6;
+            }
+            bitCount -= 8;
+            int b = (bits >> bitCount) & 0xff;
+            bits &= (1 << bitCount) - 1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int count = 0;
+            while (count < len) {
+                int next = read();
+                if (next < 0) {
+                    break;
+                }
+                b[off + count++] = (byte) next;
+            }
+            return count == 0 ? -1 : count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = 0;
+            while (skipped < n && read() >= 0) {
+                skipped++;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            // Every four characters left hold at most three bytes
+            return (end - position) / 4 * 3 + bitCount / 8;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            markPosition = position;
+            markBits = bits;
+            markBitCount = bitCount;
+        }
+
+        @Override
+        public synchronized void reset() {
+            position = markPosition;
+            bits = markBits;
+            bitCount = markBitCount;
+        }
+    }
+}
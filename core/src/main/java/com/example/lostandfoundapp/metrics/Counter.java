@@ -0,0 +1,29 @@
+package com.example.lostandfoundapp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A count that only goes up, e.g. items parsed or writes failed
+ */
+public final class Counter {
+    private final AtomicLong mCount = new AtomicLong();
+
+    Counter() {
+    }
+
+    public void increment() {
+        mCount.incrementAndGet();
+    }
+
+    public void add(long delta) {
+        mCount.addAndGet(delta);
+    }
+
+    public long get() {
+        return mCount.get();
+    }
+
+    void reset() {
+        mCount.set(0);
+    }
+}
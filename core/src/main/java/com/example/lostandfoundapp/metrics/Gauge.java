@@ -0,0 +1,39 @@
+package com.example.lostandfoundapp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A current value, e.g. the number of attached listeners, with the highest
+ * value it has had since the last reset
+ */
+public final class Gauge {
+    private final AtomicLong mValue = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    Gauge() {
+    }
+
+    public void set(long value) {
+        mValue.set(value);
+        updateMax(value);
+    }
+
+    public long get() {
+        return mValue.get();
+    }
+
+    public long getMax() {
+        return mMax.get();
+    }
+
+    void reset() {
+        mMax.set(mValue.get());
+    }
+
+    private void updateMax(long value) {
+        long max = mMax.get();
+        while (value > max && !mMax.compareAndSet(max, value)) {
+            max = mMax.get();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.lostandfoundapp.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process-wide registry of counters, gauges and latency histograms, by
+ * name. Looking one up costs a map lookup, so call sites keep what they
+ * get in a static field and only record on the hot path. The same name
+ * always returns the same metric.
+ */
+public final class Metrics {
+    private static final ConcurrentMap<String, Counter> sCounters = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Gauge> sGauges = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LatencyHistogram> sHistograms = new ConcurrentHashMap<>();
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name) {
+        Counter counter = sCounters.get(name);
+        if (counter == null) {
+            sCounters.putIfAbsent(name, new Counter());
+            counter = sCounters.get(name);
+        }
+        return counter;
+    }
+
+    public static Gauge gauge(String name) {
+        Gauge gauge = sGauges.get(name);
+        if (gauge == null) {
+            sGauges.putIfAbsent(name, new Gauge());
+            gauge = sGauges.get(name);
+        }
+        return gauge;
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = sHistograms.get(name);
+        if (histogram == null) {
+            sHistograms.putIfAbsent(name, new LatencyHistogram());
+            histogram = sHistograms.get(name);
+        }
+        return histogram;
+    }
+
+    /**
+     * Clear every metric, e.g. before reproducing a problem. Gauges keep
+     * their current value.
+     */
+    public static void reset() {
+        for (Counter counter : sCounters.values()) {
+            counter.reset();
+        }
+        for (Gauge gauge : sGauges.values()) {
+            gauge.reset();
+        }
+        for (LatencyHistogram histogram : sHistograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Plain-text table of every metric, sorted by name, latencies in
+     * milliseconds. Meant to be read by people and attached to reports.
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+
+        Map<String, LatencyHistogram> histograms = new TreeMap<>(sHistograms);
+        report.append(String.format(Locale.US, "%-28s %8s %8s %8s %8s %8s %8s%n",
+                "latency (ms)", "count", "mean", "p50", "p95", "p99", "max"));
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            report.append(String.format(Locale.US, "%-28s %8d %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                    entry.getKey(),
+                    histogram.getCount(),
+                    histogram.getMeanNanos() / NANOS_PER_MILLI,
+                    histogram.getPercentileNanos(50) / NANOS_PER_MILLI,
+                    histogram.getPercentileNanos(95) / NANOS_PER_MILLI,
+                    histogram.getPercentileNanos(99) / NANOS_PER_MILLI,
+                    histogram.getMaxNanos() / NANOS_PER_MILLI));
+        }
+
+        Map<String, Gauge> gauges = new TreeMap<>(sGauges);
+        report.append(String.format(Locale.US, "%n%-28s %8s %8s%n", "gauge", "value", "max"));
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            report.append(String.format(Locale.US, "%-28s %8d %8d%n",
+                    entry.getKey(), entry.getValue().get(), entry.getValue().getMax()));
+        }
+
+        Map<String, Counter> counters = new TreeMap<>(sCounters);
+        report.append(String.format(Locale.US, "%n%-28s %8s%n", "counter", "value"));
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            report.append(String.format(Locale.US, "%-28s %8d%n", entry.getKey(), entry.getValue().get()));
+        }
+        return report.toString();
+    }
+}
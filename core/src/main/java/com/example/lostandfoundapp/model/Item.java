@@ -1,6 +1,8 @@
 package com.example.lostandfoundapp.model;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 
 public class Item implements Serializable {
     private int id;
@@ -8,15 +10,20 @@ public class Item implements Serializable {
     private String user_id;     // Added for Firebase
     private String title;
     private String description;
-    private String image;
+    private String image;       // Legacy inline Base64 image, replaced by the refs below
+    private String thumbnail_ref;
+    private String image_ref;
     private int status_id;
     private String location;
     private String contact_name;
     private String contact_phone;
     private String contact_email;
-    private String created_at;
-    private String updated_at;
-    private ItemStatus status;
+    // Server time in epoch milliseconds, 0 if unknown
+    private long created_at;
+    private long updated_at;
+    // Server-side filter indexes, kept in step with status_id by FirebaseManager
+    private String status_key;
+    private String active_key;
 
     // Constructor
     public Item() {
@@ -72,6 +79,22 @@ public class Item implements Serializable {
         this.image = image;
     }
 
+    public String getThumbnail_ref() {
+        return thumbnail_ref;
+    }
+
+    public void setThumbnail_ref(String thumbnail_ref) {
+        this.thumbnail_ref = thumbnail_ref;
+    }
+
+    public String getImage_ref() {
+        return image_ref;
+    }
+
+    public void setImage_ref(String image_ref) {
+        this.image_ref = image_ref;
+    }
+
     public int getStatus_id() {
         return status_id;
     }
@@ -112,27 +135,59 @@ public class Item implements Serializable {
         this.contact_email = contact_email;
     }
 
-    public String getCreated_at() {
+    public long getCreated_at() {
         return created_at;
     }
 
-    public void setCreated_at(String created_at) {
+    public void setCreated_at(long created_at) {
         this.created_at = created_at;
     }
 
-    public String getUpdated_at() {
+    public long getUpdated_at() {
         return updated_at;
     }
 
-    public void setUpdated_at(String updated_at) {
+    public void setUpdated_at(long updated_at) {
         this.updated_at = updated_at;
     }
 
-    public ItemStatus getStatus() {
-        return status;
+    public String getStatus_key() {
+        return status_key;
+    }
+
+    public void setStatus_key(String status_key) {
+        this.status_key = status_key;
+    }
+
+    public String getActive_key() {
+        return active_key;
+    }
+
+    public void setActive_key(String active_key) {
+        this.active_key = active_key;
     }
 
-    public void setStatus(ItemStatus status) {
-        this.status = status;
+    /**
+     * Stored fields by database key. Leaves out the id and the Firebase key,
+     * which are not part of the stored item.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("user_id", user_id);
+        map.put("title", title);
+        map.put("description", description);
+        map.put("image", image);
+        map.put("thumbnail_ref", thumbnail_ref);
+        map.put("image_ref", image_ref);
+        map.put("status_id", status_id);
+        map.put("location", location);
+        map.put("contact_name", contact_name);
+        map.put("contact_phone", contact_phone);
+        map.put("contact_email", contact_email);
+        map.put("created_at", created_at);
+        map.put("updated_at", updated_at);
+        map.put("status_key", status_key);
+        map.put("active_key", active_key);
+        return map;
     }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.example.lostandfoundapp.model;
+
+import com.example.lostandfoundapp.utils.Timestamps;
+
+import java.util.Map;
+
+/**
+ * Builds items from the plain value Firebase hands over for an item node,
+ * a map of field name to String, Long, Double, Boolean or nested map.
+ * Replaces DataSnapshot.getValue(Item.class), which looks up and invokes a
+ * setter reflectively for every field of every item.
+ *
+ * Missing fields keep their defaults. A field holding the wrong type is
+ * skipped rather than failing the whole item, and unknown fields are
+ * ignored, as the bean mapper does. Timestamps still stored as legacy
+ * date text are read as milliseconds.
+ */
+public final class ItemMapper {
+
+    private ItemMapper() {
+    }
+
+    /**
+     * Item stored under the key, or null if the value is not an object
+     */
+    public static Item fromValue(String key, Object value) {
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> fields = (Map<?, ?>) value;
+        Item item = new Item();
+        for (Map.Entry<?, ?> field : fields.entrySet()) {
+            Object fieldValue = field.getValue();
+            switch (String.valueOf(field.getKey())) {
+                case "id":
+                    item.setId(asInt(fieldValue, item.getId()));
+                    break;
+                case "user_id":
+                    item.setUser_id(asString(fieldValue, item.getUser_id()));
+                    break;
+                case "title":
+                    item.setTitle(asString(fieldValue, item.getTitle()));
+                    break;
+                case "description":
+                    item.setDescription(asString(fieldValue, item.getDescription()));
+                    break;
+                case "image":
+                    item.setImage(asString(fieldValue, item.getImage()));
+                    break;
+                case "thumbnail_ref":
+                    item.setThumbnail_ref(asString(fieldValue, item.getThumbnail_ref()));
+                    break;
+                case "image_ref":
+                    item.setImage_ref(asString(fieldValue, item.getImage_ref()));
+                    break;
+                case "status_id":
+                    item.setStatus_id(asInt(fieldValue, item.getStatus_id()));
+                    break;
+                case "location":
+                    item.setLocation(asString(fieldValue, item.getLocation()));
+                    break;
+                case "contact_name":
+                    item.setContact_name(asString(fieldValue, item.getContact_name()));
+                    break;
+                case "contact_phone":
+                    item.setContact_phone(asString(fieldValue, item.getContact_phone()));
+                    break;
+                case "contact_email":
+                    item.setContact_email(asString(fieldValue, item.getContact_email()));
+                    break;
+                case "created_at":
+                    item.setCreated_at(Timestamps.fromValue(fieldValue));
+                    break;
+                case "updated_at":
+                    item.setUpdated_at(Timestamps.fromValue(fieldValue));
+                    break;
+                case "status_key":
+                    item.setStatus_key(asString(fieldValue, item.getStatus_key()));
+                    break;
+                case "active_key":
+                    item.setActive_key(asString(fieldValue, item.getActive_key()));
+                    break;
+                default:
+                    // Unknown field, or an embedded status from older versions, ignored
+                    break;
+            }
+        }
+        // The key is the item's identity, whatever an old write stored in firebase_id
+        item.setFirebase_id(key);
+        return item;
+    }
+
+    /**
+     * Status stored as an object, or null if the value is not an object
+     */
+    public static ItemStatus statusFromValue(Object value) {
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> fields = (Map<?, ?>) value;
+        ItemStatus status = new ItemStatus();
+        status.setId(asInt(fields.get("id"), 0));
+        status.setName(asString(fields.get("name"), null));
+        status.setColor(asString(fields.get("color"), null));
+        status.setCreated_at(asString(fields.get("created_at"), null));
+        status.setUpdated_at(asString(fields.get("updated_at"), null));
+        return status;
+    }
+
+    // Strings and numbers read as text, anything else keeps the fallback
+    private static String asString(Object value, String fallback) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return String.valueOf(value);
+        }
+        return fallback;
+    }
+
+    // Whole numbers, and text holding one, read as an int; anything else keeps the fallback
+    private static int asInt(Object value, int fallback) {
+        if (value instanceof Long || value instanceof Integer) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Double) {
+            double number = (Double) value;
+            return number == Math.rint(number) ? (int) number : fallback;
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.lostandfoundapp.model;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Newest-first orders of the item lists, and binary search within them.
+ *
+ * Feeds paged over the status index are in push key order, the order the
+ * items were posted in by their devices' clocks. The recent feed pages over
+ * the server's created_at index, which orders by created_at and then by
+ * key; NEWEST_CREATED_FIRST is that order reversed.
+ */
+public final class ItemOrder {
+    /**
+     * Newest push key first
+     */
+    public static final Comparator<Item> NEWEST_KEY_FIRST = new Comparator<Item>() {
+        @Override
+        public int compare(Item a, Item b) {
+            return b.getFirebase_id().compareTo(a.getFirebase_id());
+        }
+    };
+
+    /**
+     * Latest server creation time first, the newest key first among equal times
+     */
+    public static final Comparator<Item> NEWEST_CREATED_FIRST = new Comparator<Item>() {
+        @Override
+        public int compare(Item a, Item b) {
+            int byTime = Long.compare(b.getCreated_at(), a.getCreated_at());
+            return byTime != 0 ? byTime : NEWEST_KEY_FIRST.compare(a, b);
+        }
+    };
+
+    private ItemOrder() {
+    }
+
+    /**
+     * Position an item would take in a list sorted by the order
+     */
+    public static int insertionIndex(List<Item> items, Item item, Comparator<Item> order) {
+        int low = 0;
+        int high = items.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(items.get(mid), item) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Position of an item in a list sorted by the order, found by its key
+     * and its fields the order reads, or -1
+     */
+    public static int indexOf(List<Item> items, Item item, Comparator<Item> order) {
+        int index = insertionIndex(items, item, order);
+        if (index < items.size() && item.getFirebase_id().equals(items.get(index).getFirebase_id())) {
+            return index;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.lostandfoundapp.search;
+
+import com.example.lostandfoundapp.model.Item;
+import com.example.lostandfoundapp.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Status filters of the home list. A filter is a status id, or
+ * Constants.STATUS_ACTIVE for every item that is not claimed.
+ */
+public final class ItemFilter {
+    private ItemFilter() {
+    }
+
+    // Check if an item belongs in a list filtered by this status
+    public static boolean matches(int statusId, Item item) {
+        if (statusId == Constants.STATUS_ACTIVE) {
+            return item.getStatus_id() != Constants.STATUS_CLAIMED;
+        }
+        return item.getStatus_id() == statusId;
+    }
+
+    /**
+     * The items matching the filter, in their original order
+     */
+    public static List<Item> filter(int statusId, List<Item> items) {
+        List<Item> matching = new ArrayList<>();
+        for (Item item : items) {
+            if (matches(statusId, item)) {
+                matching.add(item);
+            }
+        }
+        return matching;
+    }
+}
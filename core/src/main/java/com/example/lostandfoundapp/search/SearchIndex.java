@@ -0,0 +1,271 @@
+package com.example.lostandfoundapp.search;
+
+import com.example.lostandfoundapp.model.Item;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search index over item title, description and location.
+ *
+ * Field text is normalized once when an item is added (lower case, accents
+ * folded) and every trigram of it is posted to a bitset. A query term of
+ * three or more characters only verifies the items that contain all of its
+ * trigrams; shorter terms scan the pre-normalized text. No item text is
+ * lower-cased or copied while searching.
+ *
+ * Results are ranked by the best field each term matched in (title, then
+ * location, then description), then by recency. Methods are synchronized,
+ * but a search holds the lock for its whole run: update and query the index
+ * from the same background thread so the main thread never waits on it.
+ */
+public class SearchIndex {
+    private static final int GRAM = 3;
+
+    // Per-field weights, higher ranks first
+    private static final int WEIGHT_TITLE = 4;
+    private static final int WEIGHT_LOCATION = 2;
+    private static final int WEIGHT_DESCRIPTION = 1;
+    // Extra weight when a term starts a word rather than matching mid-word
+    private static final int WORD_START_BONUS = 1;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<Integer> freeSlots = new ArrayList<>();
+    private final Map<String, BitSet> postings = new HashMap<>();
+
+    /**
+     * Lower-case and strip accents, so "Café" and "cafe" match
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Make the index hold exactly these items. Items already indexed with the
+     * same text are kept as they are, so reloading a page only normalizes
+     * what is new or edited.
+     */
+    public synchronized void rebuild(List<Item> items) {
+        Set<String> ids = new HashSet<>();
+        for (Item item : items) {
+            if (item != null && item.getFirebase_id() != null) {
+                ids.add(item.getFirebase_id());
+                put(item);
+            }
+        }
+        for (String id : new ArrayList<>(slotsById.keySet())) {
+            if (!ids.contains(id)) {
+                remove(id);
+            }
+        }
+    }
+
+    /**
+     * Add an item, or re-index it if it is already present
+     */
+    public synchronized void put(Item item) {
+        if (item == null || item.getFirebase_id() == null) {
+            return;
+        }
+        Integer existing = slotsById.get(item.getFirebase_id());
+        if (existing != null && entries.get(existing).hasSameText(item)) {
+            // Postings stay valid, only the item shown in results changes
+            entries.set(existing, new Entry(item, entries.get(existing).fields));
+            return;
+        }
+        remove(item.getFirebase_id());
+
+        Entry entry = new Entry(item);
+        int slot;
+        if (freeSlots.isEmpty()) {
+            slot = entries.size();
+            entries.add(entry);
+        } else {
+            slot = freeSlots.remove(freeSlots.size() - 1);
+            entries.set(slot, entry);
+        }
+        slotsById.put(item.getFirebase_id(), slot);
+
+        for (String text : entry.fields) {
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                String gram = text.substring(i, i + GRAM);
+                BitSet bits = postings.get(gram);
+                if (bits == null) {
+                    bits = new BitSet();
+                    postings.put(gram, bits);
+                }
+                bits.set(slot);
+            }
+        }
+    }
+
+    /**
+     * Remove an item from the index
+     */
+    public synchronized void remove(String itemId) {
+        Integer slot = slotsById.remove(itemId);
+        if (slot == null) {
+            return;
+        }
+        Entry entry = entries.get(slot);
+        for (String text : entry.fields) {
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                BitSet bits = postings.get(text.substring(i, i + GRAM));
+                if (bits != null) {
+                    bits.clear(slot);
+                }
+            }
+        }
+        entries.set(slot, null);
+        freeSlots.add(slot);
+    }
+
+    public synchronized int size() {
+        return slotsById.size();
+    }
+
+    /**
+     * Find items matching every whitespace-separated term of the query, best first.
+     * Stops early and returns what it has if the calling thread is interrupted.
+     */
+    public synchronized List<Item> search(String query) {
+        String[] terms = normalize(query).trim().split("\\s+");
+        if (terms.length == 0 || terms[0].isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        BitSet candidates = candidatesFor(terms);
+        final List<Entry> matches = new ArrayList<>();
+        final Map<Entry, Integer> scores = new HashMap<>();
+
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            if ((slot & 0xff) == 0 && Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            Entry entry = entries.get(slot);
+            if (entry == null) {
+                continue;
+            }
+            int score = entry.score(terms);
+            if (score > 0) {
+                matches.add(entry);
+                scores.put(entry, score);
+            }
+        }
+
+        Collections.sort(matches, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                int byScore = Integer.compare(scores.get(b), scores.get(a));
+                if (byScore != 0) {
+                    return byScore;
+                }
+                // Newer push keys sort higher
+                return b.item.getFirebase_id().compareTo(a.item.getFirebase_id());
+            }
+        });
+
+        List<Item> results = new ArrayList<>(matches.size());
+        for (Entry entry : matches) {
+            results.add(entry.item);
+        }
+        return results;
+    }
+
+    // Intersect the trigram postings of all long enough terms
+    private BitSet candidatesFor(String[] terms) {
+        BitSet candidates = null;
+        for (String term : terms) {
+            for (int i = 0; i + GRAM <= term.length(); i++) {
+                BitSet bits = postings.get(term.substring(i, i + GRAM));
+                if (bits == null) {
+                    return new BitSet();
+                }
+                if (candidates == null) {
+                    candidates = (BitSet) bits.clone();
+                } else {
+                    candidates.and(bits);
+                }
+            }
+        }
+
+        if (candidates == null) {
+            // Only short terms: every live item is a candidate
+            candidates = new BitSet(entries.size());
+            candidates.set(0, entries.size());
+        }
+        return candidates;
+    }
+
+    /**
+     * Normalized fields of one item
+     */
+    private static class Entry {
+        final Item item;
+        // title, location, description
+        final String[] fields;
+
+        Entry(Item item) {
+            this(item, new String[]{
+                    normalize(item.getTitle()),
+                    normalize(item.getLocation()),
+                    normalize(item.getDescription())
+            });
+        }
+
+        Entry(Item item, String[] fields) {
+            this.item = item;
+            this.fields = fields;
+        }
+
+        // True if the item's searchable text is what this entry was built from
+        boolean hasSameText(Item other) {
+            return Objects.equals(item.getTitle(), other.getTitle())
+                    && Objects.equals(item.getLocation(), other.getLocation())
+                    && Objects.equals(item.getDescription(), other.getDescription());
+        }
+
+        // Sum of each term's best field weight, 0 if any term is missing
+        int score(String[] terms) {
+            int total = 0;
+            for (String term : terms) {
+                int best = 0;
+                best = Math.max(best, fieldScore(fields[0], term, WEIGHT_TITLE));
+                best = Math.max(best, fieldScore(fields[1], term, WEIGHT_LOCATION));
+                best = Math.max(best, fieldScore(fields[2], term, WEIGHT_DESCRIPTION));
+                if (best == 0) {
+                    return 0;
+                }
+                total += best;
+            }
+            return total;
+        }
+
+        private static int fieldScore(String text, String term, int weight) {
+            int index = text.indexOf(term);
+            if (index < 0) {
+                return 0;
+            }
+            boolean wordStart = index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1));
+            return weight * 2 + (wordStart ? WORD_START_BONUS : 0);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.lostandfoundapp.utils;
+
+/**
+ * Level-gated logging for hot paths such as binds and snapshot callbacks.
+ * A call below the current level returns after one comparison: messages
+ * are templates with {} placeholders, filled in only when the call is
+ * actually logged, so a disabled call builds no strings and, with the
+ * primitive overloads, boxes nothing.
+ *
+ * Levels match android.util.Log. Output goes to the installed Sink, the
+ * app installs one over android.util.Log at startup; without one nothing
+ * is written.
+ */
+public final class AppLog {
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    /**
+     * Where logged messages go
+     */
+    public interface Sink {
+        void log(int level, String tag, String message);
+    }
+
+    private static final String PLACEHOLDER = "{}";
+
+    // Set once at startup, before other threads log
+    private static int sMinLevel = WARN;
+    private static Sink sSink;
+
+    private AppLog() {
+    }
+
+    /**
+     * Send messages at minLevel and above to the sink
+     */
+    public static void install(Sink sink, int minLevel) {
+        sSink = sink;
+        sMinLevel = minLevel;
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= sMinLevel && sSink != null;
+    }
+
+    public static void d(String tag, String message) {
+        if (isLoggable(DEBUG)) {
+            sSink.log(DEBUG, tag, message);
+        }
+    }
+
+    public static void d(String tag, String template, Object arg) {
+        if (isLoggable(DEBUG)) {
+            sSink.log(DEBUG, tag, format(template, arg));
+        }
+    }
+
+    public static void d(String tag, String template, int arg) {
+        if (isLoggable(DEBUG)) {
+            sSink.log(DEBUG, tag, format(template, arg));
+        }
+    }
+
+    public static void d(String tag, String template, long arg) {
+        if (isLoggable(DEBUG)) {
+            sSink.log(DEBUG, tag, format(template, arg));
+        }
+    }
+
+    public static void d(String tag, String template, Object arg1, Object arg2) {
+        if (isLoggable(DEBUG)) {
+            sSink.log(DEBUG, tag, format(template, arg1, arg2));
+        }
+    }
+
+    public static void d(String tag, String template, int arg1, Object arg2) {
+        if (isLoggable(DEBUG)) {
+            sSink.log(DEBUG, tag, format(template, arg1, arg2));
+        }
+    }
+
+    public static void d(String tag, String template, int arg1, int arg2) {
+        if (isLoggable(DEBUG)) {
+            sSink.log(DEBUG, tag, format(template, arg1, arg2));
+        }
+    }
+
+    public static void d(String tag, String template, long arg1, long arg2) {
+        if (isLoggable(DEBUG)) {
+            sSink.log(DEBUG, tag, format(template, arg1, arg2));
+        }
+    }
+
+    public static void d(String tag, String template, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(DEBUG)) {
+            sSink.log(DEBUG, tag, format(template, arg1, arg2, arg3));
+        }
+    }
+
+    // Replace each {} with the next argument, extra arguments are ignored
+    static String format(String template, Object... args) {
+        StringBuilder message = new StringBuilder(template.length() + 16 * args.length);
+        int from = 0;
+        for (Object arg : args) {
+            int at = template.indexOf(PLACEHOLDER, from);
+            if (at < 0) {
+                break;
+            }
+            message.append(template, from, at).append(arg);
+            from = at + PLACEHOLDER.length();
+        }
+        return message.append(template, from, template.length()).toString();
+    }
+}
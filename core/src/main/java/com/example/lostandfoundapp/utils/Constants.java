@@ -6,6 +6,12 @@ public class Constants {
     public static final int STATUS_FOUND = 2;
     public static final int STATUS_CLAIMED = 3;
 
+    // Not a stored status: selects every item that is not claimed
+    public static final int STATUS_ACTIVE = 0;
+
+    // Number of items fetched per page of the home feed
+    public static final int ITEMS_PAGE_SIZE = 20;
+
     // Request codes
     public static final int REQUEST_CODE_PICK_IMAGE = 100;
 
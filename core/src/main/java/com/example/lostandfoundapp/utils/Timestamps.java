@@ -0,0 +1,69 @@
+package com.example.lostandfoundapp.utils;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Item timestamps are server time in epoch milliseconds. Items written
+ * before that hold Date.toString() text instead, which these helpers can
+ * still read until the migration has rewritten them.
+ */
+public final class Timestamps {
+    // Date.toString() output, always English whatever the device locale
+    private static final String LEGACY_PATTERN = "EEE MMM dd HH:mm:ss zzz yyyy";
+
+    // Push keys start with their creation time, 8 characters in this alphabet
+    private static final String PUSH_CHARS = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+    private static final int PUSH_TIME_LENGTH = 8;
+
+    private Timestamps() {
+    }
+
+    /**
+     * Milliseconds from a stored value: a number, or legacy date text.
+     * @return 0 if the value is neither
+     */
+    public static long fromValue(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            return parseLegacy((String) value);
+        }
+        return 0;
+    }
+
+    /**
+     * Milliseconds from Date.toString() text, 0 if it cannot be parsed
+     */
+    public static long parseLegacy(String text) {
+        // SimpleDateFormat is not thread-safe, and legacy values are rare enough to build one each time
+        SimpleDateFormat format = new SimpleDateFormat(LEGACY_PATTERN, Locale.US);
+        try {
+            Date date = format.parse(text.trim());
+            return date != null ? date.getTime() : 0;
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Creation time encoded in a push key, 0 if the key is not one
+     */
+    public static long fromPushKey(String key) {
+        if (key == null || key.length() < PUSH_TIME_LENGTH) {
+            return 0;
+        }
+        long time = 0;
+        for (int i = 0; i < PUSH_TIME_LENGTH; i++) {
+            int digit = PUSH_CHARS.indexOf(key.charAt(i));
+            if (digit < 0) {
+                return 0;
+            }
+            time = time * PUSH_CHARS.length() + digit;
+        }
+        return time;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.lostandfoundapp;
+
+import com.example.lostandfoundapp.images.DataUriStreams;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Allocation checks for the data URI codec. Asserts that the streaming
+ * writer and reader allocate a fraction of what the old
+ * ByteArrayOutputStream / Base64 / string concatenation round trip does,
+ * and that both produce the same data. Throughput and exact allocation
+ * numbers come from DataUriCodecBenchmark in the benchmarks module.
+ */
+public class DataUriAllocationBenchmarkTest {
+    // About the size of an 800x600 detail JPEG
+    private static final int IMAGE_BYTES = 90 * 1024;
+    // Chunk size the bitmap compressor writes in
+    private static final int COMPRESSOR_CHUNK = 4096;
+    // Temp buffer BitmapFactory reads a stream through
+    private static final int DECODER_BUFFER = 16 * 1024;
+    private static final String PREFIX = "data:image/jpeg;base64,";
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 20;
+
+    private final byte[] image = randomImage();
+
+    @Test
+    public void streamingEncodeMatchesBase64() {
+        assertEquals(legacyEncode(image), streamingEncode(image));
+    }
+
+    @Test
+    public void streamingDecodeMatchesBase64() {
+        String dataUri = legacyEncode(image);
+        assertArrayEquals(image, readAll(new DataUriStreams.Base64Reader(dataUri, DataUriStreams.payloadStart(dataUri))));
+
+        // Line breaks in older payloads are skipped
+        String wrapped = PREFIX + Base64.getMimeEncoder().encodeToString(image);
+        assertArrayEquals(image, readAll(new DataUriStreams.Base64Reader(wrapped, DataUriStreams.payloadStart(wrapped))));
+    }
+
+    @Test
+    public void paddingIsHandledForEveryTailLength() {
+        for (int length = 0; length < 8; length++) {
+            byte[] bytes = new byte[length];
+            new Random(length).nextBytes(bytes);
+            String encoded = streamingEncode(bytes);
+            assertEquals(legacyEncode(bytes), encoded);
+            assertArrayEquals(bytes, readAll(new DataUriStreams.Base64Reader(encoded, PREFIX.length())));
+        }
+    }
+
+    @Test
+    public void readerRewindsToMark() {
+        String dataUri = legacyEncode(image);
+        DataUriStreams.Base64Reader reader = new DataUriStreams.Base64Reader(dataUri, PREFIX.length());
+        reader.mark(Integer.MAX_VALUE);
+        byte[] header = new byte[37];
+        assertEquals(header.length, reader.read(header, 0, header.length));
+        reader.reset();
+        assertArrayEquals(image, readAll(reader));
+    }
+
+    @Test
+    public void streamingEncodeAllocatesLess() {
+        long legacy = measure(new Runnable() {
+            @Override
+            public void run() {
+                legacyEncode(image);
+            }
+        });
+        long streaming = measure(new Runnable() {
+            @Override
+            public void run() {
+                streamingEncode(image);
+            }
+        });
+        assertTrue("Streaming encode allocated " + streaming + " bytes, legacy " + legacy,
+                streaming * 2 < legacy);
+    }
+
+    @Test
+    public void streamingDecodeAllocatesLess() {
+        final String dataUri = legacyEncode(image);
+        long legacy = measure(new Runnable() {
+            @Override
+            public void run() {
+                legacyDecode(dataUri);
+            }
+        });
+        long streaming = measure(new Runnable() {
+            @Override
+            public void run() {
+                streamingDecode(dataUri);
+            }
+        });
+        assertTrue("Streaming decode allocated " + streaming + " bytes, legacy " + legacy,
+                streaming * 4 < legacy);
+    }
+
+    // The old path: buffer the compressor output, copy it out, encode, concatenate
+    private static String legacyEncode(byte[] image) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeInChunks(image, outputStream);
+        String base64String = Base64.getEncoder().encodeToString(outputStream.toByteArray());
+        return PREFIX + base64String;
+    }
+
+    // The new path, sized the same way ImageCodec.encode sizes an 800x600 bitmap
+    private static String streamingEncode(byte[] image) {
+        StringBuilder dataUri = new StringBuilder(800 * 600 / 3 + 32);
+        dataUri.append(PREFIX);
+        DataUriStreams.Base64Writer writer = new DataUriStreams.Base64Writer(dataUri);
+        writeInChunks(image, writer);
+        writer.close();
+        return dataUri.toString();
+    }
+
+    // The old path: cut out the payload and decode it into a fresh array
+    private static byte[] legacyDecode(String dataUri) {
+        return Base64.getMimeDecoder().decode(dataUri.substring(dataUri.indexOf(",") + 1));
+    }
+
+    // The new path: the decoder pulls bytes through its own fixed buffer
+    private static int streamingDecode(String dataUri) {
+        DataUriStreams.Base64Reader reader =
+                new DataUriStreams.Base64Reader(dataUri, DataUriStreams.payloadStart(dataUri));
+        byte[] buffer = new byte[DECODER_BUFFER];
+        int total = 0;
+        int read;
+        while ((read = reader.read(buffer, 0, buffer.length)) > 0) {
+            total += read;
+        }
+        return total;
+    }
+
+    private static void writeInChunks(byte[] bytes, java.io.OutputStream out) {
+        try {
+            for (int offset = 0; offset < bytes.length; offset += COMPRESSOR_CHUNK) {
+                out.write(bytes, offset, Math.min(COMPRESSOR_CHUNK, bytes.length - offset));
+            }
+        } catch (java.io.IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static byte[] readAll(DataUriStreams.Base64Reader reader) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        int read;
+        while ((read = reader.read(buffer, 0, buffer.length)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    // Average bytes allocated by the current thread per run
+    private static long measure(Runnable run) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run.run();
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ROUNDS; i++) {
+            run.run();
+        }
+        return (threads.getThreadAllocatedBytes(thread) - before) / ROUNDS;
+    }
+
+    private static byte[] randomImage() {
+        byte[] bytes = new byte[IMAGE_BYTES];
+        new Random(42).nextBytes(bytes);
+        // JPEG start of image marker, so the data looks like what we store
+        bytes[0] = (byte) 0xff;
+        bytes[1] = (byte) 0xd8;
+        return bytes;
+    }
+}
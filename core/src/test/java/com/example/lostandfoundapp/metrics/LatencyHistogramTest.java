@@ -0,0 +1,56 @@
+package com.example.lostandfoundapp.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    // Relative error the bucketing promises
+    private static final double PRECISION = 1.0 / 32;
+
+    @Test
+    public void bucketsCoverEveryValueWithinPrecision() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1_000, 16_666_667, 1_000_000_000L, (1L << 37) - 1};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue("value " + value + " above its bucket", value <= upper);
+            assertTrue("bucket of " + value + " too wide", upper - value <= value * PRECISION);
+            if (bucket > 0) {
+                assertTrue("value " + value + " below its bucket", value > LatencyHistogram.upperBoundOf(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    public void hugeValuesLandInTheLastBucket() {
+        assertEquals(LatencyHistogram.bucketOf(1L << 37), LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentilesOfUniformMilliseconds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(millis * 1_000_000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100_000_000L, histogram.getMaxNanos());
+        assertEquals(50.0, histogram.getPercentileNanos(50) / 1e6, 50 * PRECISION);
+        assertEquals(95.0, histogram.getPercentileNanos(95) / 1e6, 95 * PRECISION);
+        assertEquals(99.0, histogram.getPercentileNanos(99) / 1e6, 99 * PRECISION);
+        assertEquals(100_000_000L, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void emptyAndResetHistogramsReportZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(99));
+
+        histogram.record(5_000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(50));
+        assertEquals(0, histogram.getMeanNanos());
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.lostandfoundapp.model;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ItemMapperTest {
+
+    @Test
+    public void valuesThatAreNotObjectsGiveNoItem() {
+        assertNull(ItemMapper.fromValue("key", null));
+        assertNull(ItemMapper.fromValue("key", "Lost wallet"));
+        assertNull(ItemMapper.fromValue("key", 42L));
+    }
+
+    @Test
+    public void missingFieldsKeepTheirDefaults() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("title", "Wallet");
+
+        Item item = ItemMapper.fromValue("key", value);
+
+        assertNotNull(item);
+        assertEquals("key", item.getFirebase_id());
+        assertEquals("Wallet", item.getTitle());
+        assertNull(item.getDescription());
+        assertNull(item.getThumbnail_ref());
+        assertEquals(0, item.getStatus_id());
+        assertEquals(0, item.getCreated_at());
+    }
+
+    @Test
+    public void nullChildrenKeepTheirDefaults() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("title", null);
+        value.put("status_id", null);
+        value.put("created_at", null);
+
+        Item item = ItemMapper.fromValue("key", value);
+
+        assertNotNull(item);
+        assertNull(item.getTitle());
+        assertEquals(0, item.getStatus_id());
+        assertEquals(0, item.getCreated_at());
+    }
+
+    @Test
+    public void numbersWhereTextIsExpectedAreReadAsText() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("contact_phone", 5551234L);
+        value.put("title", 42L);
+        value.put("location", true);
+
+        Item item = ItemMapper.fromValue("key", value);
+
+        assertEquals("5551234", item.getContact_phone());
+        assertEquals("42", item.getTitle());
+        assertEquals("true", item.getLocation());
+    }
+
+    @Test
+    public void mistypedFieldsAreSkipped() {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("text", "Wallet");
+        Map<String, Object> value = new HashMap<>();
+        value.put("title", nested);
+        value.put("status_id", "lost");
+        value.put("id", 2.5);
+        value.put("description", "Brown leather");
+
+        Item item = ItemMapper.fromValue("key", value);
+
+        assertNotNull(item);
+        assertNull(item.getTitle());
+        assertEquals(0, item.getStatus_id());
+        assertEquals(0, item.getId());
+        // The other fields of the item are still read
+        assertEquals("Brown leather", item.getDescription());
+    }
+
+    @Test
+    public void wholeNumbersAreReadFromAnyNumericForm() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("status_id", " 2 ");
+        value.put("id", 7.0);
+
+        Item item = ItemMapper.fromValue("key", value);
+
+        assertEquals(2, item.getStatus_id());
+        assertEquals(7, item.getId());
+    }
+
+    @Test
+    public void timestampsAreReadFromMillisOrLegacyText() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("created_at", 1700000000000L);
+        value.put("updated_at", "Tue Nov 14 22:13:20 GMT 2023");
+
+        Item item = ItemMapper.fromValue("key", value);
+
+        assertEquals(1700000000000L, item.getCreated_at());
+        assertEquals(1700000000000L, item.getUpdated_at());
+    }
+
+    @Test
+    public void keyWinsOverAStoredFirebaseId() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("firebase_id", "stale");
+
+        assertEquals("key", ItemMapper.fromValue("key", value).getFirebase_id());
+    }
+
+    @Test
+    public void embeddedStatusIsIgnoredWhetherTextOrObject() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("id", 2L);
+        status.put("name", "Found");
+        Map<String, Object> asObject = new HashMap<>();
+        asObject.put("status_id", 1L);
+        asObject.put("status", status);
+        Map<String, Object> asText = new HashMap<>();
+        asText.put("status_id", 1L);
+        asText.put("status", "Found");
+
+        assertEquals(1, ItemMapper.fromValue("key", asObject).getStatus_id());
+        assertEquals(1, ItemMapper.fromValue("key", asText).getStatus_id());
+    }
+
+    @Test
+    public void statusIsReadOnlyFromAnObject() {
+        assertNull(ItemMapper.statusFromValue("Lost"));
+        assertNull(ItemMapper.statusFromValue(null));
+
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", "1");
+        value.put("name", "Lost");
+        value.put("color", 16711680L);
+
+        ItemStatus status = ItemMapper.statusFromValue(value);
+
+        assertNotNull(status);
+        assertEquals(1, status.getId());
+        assertEquals("Lost", status.getName());
+        assertEquals("16711680", status.getColor());
+        assertNull(status.getCreated_at());
+    }
+}
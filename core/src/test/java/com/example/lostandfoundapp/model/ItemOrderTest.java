@@ -0,0 +1,78 @@
+package com.example.lostandfoundapp.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ItemOrderTest {
+
+    @Test
+    public void newestCreatedFirstSortsByServerTimeNotKey() {
+        // The second post's device clock was behind, so its key sorts first
+        Item early = item("-Nb", 1_000);
+        Item late = item("-Na", 2_000);
+        List<Item> items = new ArrayList<>(Arrays.asList(early, late));
+
+        Collections.sort(items, ItemOrder.NEWEST_CREATED_FIRST);
+
+        assertEquals(Arrays.asList("-Na", "-Nb"), ids(items));
+    }
+
+    @Test
+    public void equalTimesAreOrderedByNewestKey() {
+        List<Item> items = new ArrayList<>(Arrays.asList(item("-Na", 1_000), item("-Nc", 1_000), item("-Nb", 1_000)));
+
+        Collections.sort(items, ItemOrder.NEWEST_CREATED_FIRST);
+
+        assertEquals(Arrays.asList("-Nc", "-Nb", "-Na"), ids(items));
+    }
+
+    @Test
+    public void newestKeyFirstIgnoresTimes() {
+        List<Item> items = new ArrayList<>(Arrays.asList(item("-Nb", 1_000), item("-Na", 2_000)));
+
+        Collections.sort(items, ItemOrder.NEWEST_KEY_FIRST);
+
+        assertEquals(Arrays.asList("-Nb", "-Na"), ids(items));
+    }
+
+    @Test
+    public void insertionKeepsTheListSorted() {
+        List<Item> items = new ArrayList<>();
+        long[] times = {5_000, 1_000, 3_000, 3_000, 4_000, 2_000};
+        for (int i = 0; i < times.length; i++) {
+            Item item = item("-N" + i, times[i]);
+            items.add(ItemOrder.insertionIndex(items, item, ItemOrder.NEWEST_CREATED_FIRST), item);
+        }
+
+        assertEquals(Arrays.asList("-N0", "-N4", "-N3", "-N2", "-N5", "-N1"), ids(items));
+    }
+
+    @Test
+    public void indexOfFindsPresentItemsOnly() {
+        List<Item> items = Arrays.asList(item("-Nc", 3_000), item("-Nb", 2_000), item("-Na", 1_000));
+
+        assertEquals(1, ItemOrder.indexOf(items, item("-Nb", 2_000), ItemOrder.NEWEST_CREATED_FIRST));
+        assertEquals(-1, ItemOrder.indexOf(items, item("-Nd", 2_000), ItemOrder.NEWEST_CREATED_FIRST));
+    }
+
+    private static Item item(String id, long createdAt) {
+        Item item = new Item();
+        item.setFirebase_id(id);
+        item.setCreated_at(createdAt);
+        return item;
+    }
+
+    private static List<String> ids(List<Item> items) {
+        List<String> ids = new ArrayList<>();
+        for (Item item : items) {
+            ids.add(item.getFirebase_id());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.lostandfoundapp.search;
+
+import com.example.lostandfoundapp.model.Item;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SearchIndexTest {
+
+    @Test
+    public void accentsAndCaseAreFolded() {
+        SearchIndex index = new SearchIndex();
+        index.put(item("-a", "Café loyalty card", null, null));
+        index.put(item("-b", "cafe receipt", null, null));
+
+        assertEquals(Arrays.asList("-b", "-a"), ids(index.search("cafe")));
+        assertEquals(Arrays.asList("-b", "-a"), ids(index.search("CAFÉ")));
+    }
+
+    @Test
+    public void prefixQueryMatchesTheLocation() {
+        SearchIndex index = new SearchIndex();
+        index.put(item("-a", "Umbrella", "Black, folding", "Library entrance"));
+        index.put(item("-b", "Keys", "Three keys on a ring", "Cafeteria"));
+
+        assertEquals(Collections.singletonList("-a"), ids(index.search("libr")));
+        // Terms shorter than a trigram scan the text instead
+        assertEquals(Collections.singletonList("-a"), ids(index.search("li")));
+    }
+
+    @Test
+    public void partOfAWordMatchesTheDescription() {
+        SearchIndex index = new SearchIndex();
+        index.put(item("-a", "Wallet", "Brown leather, student card inside", null));
+        index.put(item("-b", "Phone", "Cracked screen", null));
+
+        assertEquals(Collections.singletonList("-a"), ids(index.search("eathe")));
+    }
+
+    @Test
+    public void everyTermMustMatchSomeField() {
+        SearchIndex index = new SearchIndex();
+        index.put(item("-a", "Blue backpack", null, "Gym"));
+        index.put(item("-b", "Blue bottle", null, "Library"));
+
+        assertEquals(Collections.singletonList("-a"), ids(index.search("blue gym")));
+        assertTrue(index.search("blue pool").isEmpty());
+    }
+
+    @Test
+    public void titleRanksAboveLocationAboveDescription() {
+        SearchIndex index = new SearchIndex();
+        index.put(item("-c", "Scarf", "Left near the station", null));
+        index.put(item("-b", "Gloves", null, "Station hall"));
+        index.put(item("-a", "Station pass", null, null));
+
+        assertEquals(Arrays.asList("-a", "-b", "-c"), ids(index.search("station")));
+    }
+
+    @Test
+    public void emptyQueryFindsNothing() {
+        SearchIndex index = new SearchIndex();
+        index.put(item("-a", "Wallet", null, null));
+
+        assertTrue(index.search("").isEmpty());
+        assertTrue(index.search("   ").isEmpty());
+    }
+
+    @Test
+    public void rebuildDropsItemsNoLongerInTheList() {
+        SearchIndex index = new SearchIndex();
+        index.rebuild(Arrays.asList(item("-a", "Wallet", null, null), item("-b", "Wallet chain", null, null)));
+
+        index.rebuild(Collections.singletonList(item("-b", "Wallet chain", null, null)));
+
+        assertEquals(1, index.size());
+        assertEquals(Collections.singletonList("-b"), ids(index.search("wallet")));
+    }
+
+    @Test
+    public void rebuildReindexesEditedText() {
+        SearchIndex index = new SearchIndex();
+        index.rebuild(Collections.singletonList(item("-a", "Umbrella", null, null)));
+
+        index.rebuild(Collections.singletonList(item("-a", "Red umbrella", null, "Gym")));
+
+        assertEquals(Collections.singletonList("-a"), ids(index.search("gym")));
+        assertEquals(Collections.singletonList("-a"), ids(index.search("red")));
+    }
+
+    @Test
+    public void rebuildWithSameTextReturnsTheNewItem() {
+        SearchIndex index = new SearchIndex();
+        index.rebuild(Collections.singletonList(item("-a", "Umbrella", null, null)));
+
+        Item claimed = item("-a", "Umbrella", null, null);
+        claimed.setStatus_id(3);
+        index.rebuild(Collections.singletonList(claimed));
+
+        assertEquals(3, index.search("umbrella").get(0).getStatus_id());
+    }
+
+    @Test
+    public void removedSlotIsReusedWithoutStaleMatches() {
+        SearchIndex index = new SearchIndex();
+        index.put(item("-a", "Wallet", null, null));
+        index.remove("-a");
+        index.put(item("-b", "Keys", null, null));
+
+        assertTrue(index.search("wallet").isEmpty());
+        assertEquals(Collections.singletonList("-b"), ids(index.search("keys")));
+        assertEquals(1, index.size());
+    }
+
+    private static Item item(String id, String title, String description, String location) {
+        Item item = new Item();
+        item.setFirebase_id(id);
+        item.setTitle(title);
+        item.setDescription(description);
+        item.setLocation(location);
+        return item;
+    }
+
+    private static List<String> ids(List<Item> items) {
+        String[] ids = new String[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = items.get(i).getFirebase_id();
+        }
+        return Arrays.asList(ids);
+    }
+}